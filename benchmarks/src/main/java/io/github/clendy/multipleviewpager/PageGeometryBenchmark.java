@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page offset math of {@link VerticalViewPager} for large adapters with variable page sizes. The
+ * populated window sits in the middle of the adapter and the previous current page at its
+ * start, so offset calculation also walks the unpopulated gap between them.
+ *
+ * @author Clendy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PageGeometryBenchmark {
+
+    private static final float MARGIN_OFFSET = 0.02f;
+
+    @Param({"100", "1000", "5000"})
+    int mPageCount;
+
+    @Param({"1", "8"})
+    int mOffscreenLimit;
+
+    /**
+     * Whether page sizes go through a {@link PageSizeCache}, like they do in the pager.
+     */
+    @Param({"false", "true"})
+    boolean mCachedSizes;
+
+    private final PageGeometry.PageSizes mPageSizes = new PageGeometry.PageSizes() {
+        @Override
+        public float getPageSize(int position) {
+            return 0.5f + (position % 3) * 0.25f;
+        }
+    };
+
+    private PageGeometry mGeometry;
+    private PageInfoStore mItems;
+    private ItemInfo mCurItem;
+    private int mCurIndex;
+    private ItemInfo mOldCurInfo;
+    private float mLastScrollOffset;
+
+    @Setup
+    public void setUp() {
+        mGeometry = new PageGeometry(mCachedSizes ? new PageSizeCache(mPageSizes) : mPageSizes);
+        mItems = new PageInfoStore();
+
+        mOldCurInfo = newItem(0);
+        mItems.add(mOldCurInfo);
+        int current = mPageCount / 2;
+        for (int pos = current - mOffscreenLimit; pos <= current + mOffscreenLimit; pos++) {
+            ItemInfo ii = newItem(pos);
+            if (pos == current) {
+                mCurItem = ii;
+                mCurIndex = mItems.size();
+            }
+            mItems.add(ii);
+        }
+
+        mGeometry.calculatePageOffsets(mItems, mCurItem, mCurIndex, mOldCurInfo, mPageCount,
+                MARGIN_OFFSET);
+        ItemInfo last = mItems.get(mItems.size() - 1);
+        mLastScrollOffset = last.offset + last.heightFactor / 2;
+    }
+
+    private ItemInfo newItem(int position) {
+        ItemInfo ii = new ItemInfo();
+        ii.position = position;
+        ii.heightFactor = mPageSizes.getPageSize(position);
+        return ii;
+    }
+
+    @Benchmark
+    public float calculatePageOffsets() {
+        mGeometry.calculatePageOffsets(mItems, mCurItem, mCurIndex, mOldCurInfo, mPageCount,
+                MARGIN_OFFSET);
+        return mGeometry.getLastOffset();
+    }
+
+    /**
+     * Looks up the last populated page, past the unpopulated gap.
+     */
+    @Benchmark
+    public int pageForScrollOffset() {
+        return mGeometry.pageForScrollOffset(mItems, mLastScrollOffset, MARGIN_OFFSET);
+    }
+
+    @Benchmark
+    public ItemInfo infoForPosition() {
+        return mItems.getByPosition(mCurItem.position + mOffscreenLimit);
+    }
+
+    @Benchmark
+    public int determineTargetPage() {
+        return PageGeometry.determineTargetPage(mItems, mCurItem.position, mCurItem.position,
+                0.45f, 1200, 300, 60, 1000);
+    }
+}
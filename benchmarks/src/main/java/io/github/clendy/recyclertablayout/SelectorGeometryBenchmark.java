@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selector interpolation and travel duration of {@link RecyclerTabLayout}, as run per animation
+ * frame and per focus change.
+ *
+ * @author Clendy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SelectorGeometryBenchmark {
+
+    private final int[] mStart = {0, 0, 180, 60};
+    private final int[] mEnd = {960, 0, 1140, 60};
+    private float mFraction = 0.37f;
+
+    /**
+     * Same work as {@link RectEvaluator#evaluate} on the four selector edges.
+     */
+    @Benchmark
+    public int evaluateBounds() {
+        int left = SelectorGeometry.interpolate(mStart[0], mEnd[0], mFraction);
+        int top = SelectorGeometry.interpolate(mStart[1], mEnd[1], mFraction);
+        int right = SelectorGeometry.interpolate(mStart[2], mEnd[2], mFraction);
+        int bottom = SelectorGeometry.interpolate(mStart[3], mEnd[3], mFraction);
+        return left ^ top ^ right ^ bottom;
+    }
+
+    @Benchmark
+    public int computeTravelDuration() {
+        return SelectorGeometry.computeTravelDuration(mEnd[0] - mStart[0], mEnd[1] - mStart[1],
+                2000);
+    }
+}
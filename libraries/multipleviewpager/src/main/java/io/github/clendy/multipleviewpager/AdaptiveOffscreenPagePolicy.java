@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+/**
+ * {@link OffscreenPagePolicy} widening the window in the direction of travel while the user
+ * keeps paging the same way. Every page change that follows the previous one in the same
+ * direction within the sustain interval keeps one more page ahead, up to a maximum. The window
+ * shrinks back to the offscreen page limit as soon as the user pauses, reverses or the pager
+ * goes idle.
+ *
+ * @author Clendy
+ */
+public class AdaptiveOffscreenPagePolicy implements OffscreenPagePolicy {
+
+    public static final int DEFAULT_MAX_EXTRA_PAGES = 2;
+    public static final long DEFAULT_SUSTAIN_INTERVAL = 1000; // ms
+
+    private final int mMaxExtraPages;
+    private final long mSustainInterval;
+
+    private int mDirection;
+    private long mLastEventTime;
+    private int mExtraPages;
+
+    public AdaptiveOffscreenPagePolicy() {
+        this(DEFAULT_MAX_EXTRA_PAGES, DEFAULT_SUSTAIN_INTERVAL);
+    }
+
+    /**
+     * @param maxExtraPages         most pages kept ahead on top of the offscreen page limit
+     * @param sustainIntervalMillis longest time between page changes counting as sustained
+     */
+    public AdaptiveOffscreenPagePolicy(int maxExtraPages, long sustainIntervalMillis) {
+        if (maxExtraPages < 0 || sustainIntervalMillis < 0) {
+            throw new IllegalArgumentException(
+                    "Extra pages and sustain interval must not be negative.");
+        }
+        mMaxExtraPages = maxExtraPages;
+        mSustainInterval = sustainIntervalMillis;
+    }
+
+    @Override
+    public void onPageSelected(int position, int direction, long eventTime) {
+        if (direction == mDirection && eventTime - mLastEventTime <= mSustainInterval) {
+            mExtraPages = Math.min(mExtraPages + 1, mMaxExtraPages);
+        } else {
+            mExtraPages = 0;
+        }
+        mDirection = direction;
+        mLastEventTime = eventTime;
+    }
+
+    @Override
+    public void onIdle() {
+        mExtraPages = 0;
+    }
+
+    @Override
+    public int getPagesBefore(int offscreenPageLimit) {
+        return mDirection < 0 ? offscreenPageLimit + mExtraPages : offscreenPageLimit;
+    }
+
+    @Override
+    public int getPagesAfter(int offscreenPageLimit) {
+        return mDirection > 0 ? offscreenPageLimit + mExtraPages : offscreenPageLimit;
+    }
+
+    /**
+     * Gets the number of pages currently kept ahead on top of the offscreen page limit.
+     *
+     * @return extra page count
+     */
+    public int getExtraPages() {
+        return mExtraPages;
+    }
+}
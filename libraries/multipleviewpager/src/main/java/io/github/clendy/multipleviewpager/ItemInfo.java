@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+/**
+ * Bookkeeping of a page populated by {@link VerticalViewPager}. Sizes and offsets are fractions
+ * of the pager's client height.
+ *
+ * @author Clendy
+ */
+class ItemInfo {
+    Object object;
+    int position;
+    boolean scrolling;
+    float heightFactor;
+    float offset;
+
+    void set(ItemInfo other) {
+        object = other.object;
+        position = other.position;
+        scrolling = other.scrolling;
+        heightFactor = other.heightFactor;
+        offset = other.offset;
+    }
+
+    /**
+     * Drops the page object reference and resets the fields, so the record can be pooled.
+     */
+    void recycle() {
+        object = null;
+        position = 0;
+        scrolling = false;
+        heightFactor = 0;
+        offset = 0;
+    }
+}
@@ -18,6 +18,8 @@ package io.github.clendy.multipleviewpager;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.os.SystemClock;
+import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -26,6 +28,7 @@ import android.view.KeyEvent;
 import android.view.View;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 
 
 /**
@@ -38,6 +41,9 @@ public class MultiHorizontalViewPager extends ViewPager {
     private static final String TAG = MultiHorizontalViewPager.class.getSimpleName();
 
     private static final int DEFAULT_DURATION = 800;
+    private static final int POLICY_IDLE_DELAY = 500; // ms
+
+    private static final String TRACE_ARROW_SCROLL_TAG = "MHVP ArrowScroll";
 
     private View mFocusView = null;
 
@@ -50,6 +56,65 @@ public class MultiHorizontalViewPager extends ViewPager {
 
     private int mDuration = DEFAULT_DURATION;
 
+    private final PagePrefetcher mPrefetcher = new PagePrefetcher(this, new PagePrefetcher.Host() {
+        @Override
+        public int nextPrefetchPosition() {
+            return MultiHorizontalViewPager.this.nextPrefetchPosition();
+        }
+
+        @Override
+        public void prefetchPage(int position) {
+            mPrefetchAdapter.prefetch(MultiHorizontalViewPager.this, position);
+        }
+
+        @Override
+        public boolean isScrolling() {
+            return mScrollState != SCROLL_STATE_IDLE;
+        }
+    });
+    private PrefetchingPagerAdapter mPrefetchAdapter;
+    private Method mInfoForPosition;
+    private int mPrefetchPageCount;
+    // 1 when paging right, -1 when paging left, 0 before the first page change
+    private int mTravelDirection;
+    private int mSelectedPosition;
+    private int mScrollState = SCROLL_STATE_IDLE;
+
+    private final PageTrimmer mTrimmer = new PageTrimmer(new PageTrimmer.Host() {
+        @Override
+        public void onTrimPages() {
+            mPrefetcher.cancel();
+            if (mPrefetchAdapter != null) {
+                mPrefetchAdapter.clear();
+            }
+            if (mUntrimmedPageLimit < 0) {
+                mUntrimmedPageLimit = MultiHorizontalViewPager.super.getOffscreenPageLimit();
+            }
+            // ViewPager keeps at least one page on either side, pages closer than that are
+            // evicted while ViewPager's window stays in place
+            final int floor = mTrimmer.getFloor();
+            MultiHorizontalViewPager.super.setOffscreenPageLimit(Math.max(1, floor));
+            if (mPrefetchAdapter != null) {
+                final int current = getCurrentItem();
+                mPrefetchAdapter.evictPages(MultiHorizontalViewPager.this,
+                        current - floor, current + floor);
+            }
+        }
+    });
+    // offscreen page limit to restore after a trim, -1 when not trimmed
+    private int mUntrimmedPageLimit = -1;
+
+    private OffscreenPagePolicy mOffscreenPagePolicy;
+    private final Runnable mPolicyIdleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mOffscreenPagePolicy != null) {
+                mOffscreenPagePolicy.onIdle();
+                trimPrefetchedPages();
+            }
+        }
+    };
+
     public MultiHorizontalViewPager(Context context) {
         this(context, null);
     }
@@ -74,6 +139,7 @@ public class MultiHorizontalViewPager extends ViewPager {
         setDescendantFocusability(FOCUS_AFTER_DESCENDANTS);
         setFocusable(false);
         initViewPagerScroll();
+        initPrefetch();
     }
 
     private void initViewPagerScroll() {
@@ -88,6 +154,189 @@ public class MultiHorizontalViewPager extends ViewPager {
         }
     }
 
+    private void initPrefetch() {
+        try {
+            mInfoForPosition = ViewPager.class.getDeclaredMethod("infoForPosition", int.class);
+            mInfoForPosition.setAccessible(true);
+        } catch (Exception e) {
+            Log.e(TAG, e.getMessage());
+        }
+        addOnPageChangeListener(new SimpleOnPageChangeListener() {
+            @Override
+            public void onPageSelected(int position) {
+                if (position != mSelectedPosition) {
+                    restoreFromTrim();
+                    mTravelDirection = position > mSelectedPosition ? 1 : -1;
+                    mSelectedPosition = position;
+                    if (mOffscreenPagePolicy != null) {
+                        mOffscreenPagePolicy.onPageSelected(position, mTravelDirection,
+                                SystemClock.uptimeMillis());
+                    }
+                    trimPrefetchedPages();
+                    if (getPrefetchReach() > 0) {
+                        mPrefetcher.schedule();
+                    }
+                }
+            }
+
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                mScrollState = state;
+                if (state != SCROLL_STATE_IDLE) {
+                    restoreFromTrim();
+                }
+                if (mOffscreenPagePolicy != null) {
+                    if (state == SCROLL_STATE_IDLE) {
+                        postDelayed(mPolicyIdleRunnable, POLICY_IDLE_DELAY);
+                    } else {
+                        removeCallbacks(mPolicyIdleRunnable);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the adapter, which is wrapped so pages prefetched while idle can be handed to
+     * ViewPager. {@link #getAdapter()} still returns the passed adapter.
+     */
+    @Override
+    public void setAdapter(PagerAdapter adapter) {
+        mPrefetcher.cancel();
+        if (mPrefetchAdapter != null) {
+            mPrefetchAdapter.release();
+        }
+        mPrefetchAdapter = adapter != null
+                ? new PrefetchingPagerAdapter(adapter, mTrimmer) : null;
+        mTrimmer.onDataSetChanged();
+        super.setAdapter(mPrefetchAdapter);
+        mTravelDirection = 0;
+        mSelectedPosition = getCurrentItem();
+    }
+
+    @Override
+    public PagerAdapter getAdapter() {
+        return mPrefetchAdapter != null ? mPrefetchAdapter.getWrappedAdapter() : null;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mPrefetcher.onAttachedToWindow();
+        mTrimmer.register(getContext());
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(mPolicyIdleRunnable);
+        mPrefetcher.cancel();
+        mTrimmer.unregister();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public void computeScroll() {
+        mPrefetcher.onFrame();
+        super.computeScroll();
+    }
+
+    private int nextPrefetchPosition() {
+        if (mPrefetchAdapter == null || mInfoForPosition == null || mTravelDirection == 0
+                || mTrimmer.isTrimmed() || getWindowToken() == null) {
+            return -1;
+        }
+        final int count = mPrefetchAdapter.getCount();
+        final int edge = getCurrentItem() + mTravelDirection * getOffscreenPageLimit();
+        final int reach = getPrefetchReach();
+        for (int i = 1; i <= reach; i++) {
+            final int position = edge + mTravelDirection * i;
+            if (position < 0 || position >= count) {
+                return -1;
+            }
+            if (!mPrefetchAdapter.isPrefetched(position) && !isPopulated(position)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isPopulated(int position) {
+        try {
+            return mInfoForPosition.invoke(this, position) != null;
+        } catch (Exception e) {
+            Log.e(TAG, e.getMessage());
+            // do not risk instantiating a page twice
+            return true;
+        }
+    }
+
+    /**
+     * Leaves the trimmed state, rebuilding ViewPager's window with the offscreen page limit.
+     */
+    private void restoreFromTrim() {
+        if (mTrimmer.restore()) {
+            final int limit = mUntrimmedPageLimit;
+            mUntrimmedPageLimit = -1;
+            super.setOffscreenPageLimit(limit);
+            if (mPrefetchAdapter != null) {
+                mPrefetchAdapter.restorePages(this);
+            }
+        }
+    }
+
+    /**
+     * Keeps the limit aside while trimmed, it is applied once the user pages on.
+     */
+    @Override
+    public void setOffscreenPageLimit(int limit) {
+        if (mTrimmer.isTrimmed()) {
+            mUntrimmedPageLimit = limit;
+        } else {
+            super.setOffscreenPageLimit(limit);
+        }
+    }
+
+    @Override
+    public int getOffscreenPageLimit() {
+        return mTrimmer.isTrimmed() ? mUntrimmedPageLimit : super.getOffscreenPageLimit();
+    }
+
+    /**
+     * Destroys prefetched pages that are no longer ahead of the direction of travel.
+     */
+    private void trimPrefetchedPages() {
+        if (mPrefetchAdapter == null) {
+            return;
+        }
+        final int current = getCurrentItem();
+        final int extra = getPrefetchReach();
+        final int reach = getOffscreenPageLimit() + extra;
+        if (extra == 0) {
+            mPrefetchAdapter.clear();
+        } else if (mTravelDirection > 0) {
+            mPrefetchAdapter.trim(current + 1, current + reach);
+        } else {
+            mPrefetchAdapter.trim(current - reach, current - 1);
+        }
+    }
+
+    /**
+     * Gets the number of pages held ahead of the direction of travel, beyond ViewPager's own
+     * window. ViewPager keeps the same number of pages on both sides, so the pages an
+     * {@link OffscreenPagePolicy} adds ahead of the offscreen page limit are prefetched too.
+     */
+    private int getPrefetchReach() {
+        int reach = mPrefetchPageCount;
+        if (mOffscreenPagePolicy != null && mTravelDirection != 0) {
+            final int limit = getOffscreenPageLimit();
+            final int ahead = mTravelDirection > 0
+                    ? mOffscreenPagePolicy.getPagesAfter(limit)
+                    : mOffscreenPagePolicy.getPagesBefore(limit);
+            reach += Math.max(0, ahead - limit);
+        }
+        return reach;
+    }
+
     @Override
     public void requestChildFocus(View child, View focused) {
         mFocusView = focused;
@@ -111,17 +360,25 @@ public class MultiHorizontalViewPager extends ViewPager {
 
     @Override
     public boolean arrowScroll(int direction) {
+        Tracer.beginSection(TRACE_ARROW_SCROLL_TAG);
+        boolean handled = !isFocusAtEdge(direction) && super.arrowScroll(direction);
+        Tracer.endSection();
+        return handled;
+    }
+
+    /**
+     * Whether focus must stay on the current page, as no view in the passed direction can
+     * take it and scrolling with focus on pages is disabled.
+     */
+    private boolean isFocusAtEdge(int direction) {
         if (mFocusView != null && !mScrollFocusPager) {
             if (direction == FOCUS_LEFT || direction == FOCUS_RIGHT) {
                 View nextFocus = FocusFinder.getInstance()
                         .findNextFocus(this, mFocusView, direction);
-                if (nextFocus == null) {
-                    return false;
-                }
+                return nextFocus == null;
             }
         }
-
-        return super.arrowScroll(direction);
+        return false;
     }
 
     public int getDuration() {
@@ -133,4 +390,126 @@ public class MultiHorizontalViewPager extends ViewPager {
         initViewPagerScroll();
     }
 
+    /**
+     * Returns the policy adapting the offscreen page window, if any.
+     *
+     * @return Policy, or null if the window is fixed by the offscreen page limit
+     * @see #setOffscreenPagePolicy(OffscreenPagePolicy)
+     */
+    public OffscreenPagePolicy getOffscreenPagePolicy() {
+        return mOffscreenPagePolicy;
+    }
+
+    /**
+     * Set a policy deciding how many pages are retained ahead of the current page, based on
+     * the offscreen page limit and how the user pages, e.g. an
+     * {@link AdaptiveOffscreenPagePolicy}. Pages the policy wants beyond the offscreen page
+     * limit are instantiated while the main thread is idle, as with
+     * {@link #setPrefetchPageCount(int)}. Fewer pages than the limit are not supported. Pass
+     * null to retain exactly the offscreen page limit.
+     *
+     * @param policy Policy to use, or null
+     */
+    public void setOffscreenPagePolicy(OffscreenPagePolicy policy) {
+        if (policy != mOffscreenPagePolicy) {
+            removeCallbacks(mPolicyIdleRunnable);
+            mOffscreenPagePolicy = policy;
+            trimPrefetchedPages();
+        }
+    }
+
+    /**
+     * Destroys prefetched pages and the pages farther from the current page than the trimmed
+     * page floor, as done when the app is asked to trim memory. The offscreen page limit is
+     * applied again, and destroyed pages are instantiated again, once the user pages on or
+     * starts scrolling.
+     *
+     * @see #setTrimmedPageFloor(int)
+     */
+    public void trimOffscreenPages() {
+        mTrimmer.trim();
+    }
+
+    /**
+     * Returns the number of pages kept to either side of the current page when trimmed.
+     *
+     * @return How many pages survive a trim on either side
+     * @see #setTrimmedPageFloor(int)
+     */
+    public int getTrimmedPageFloor() {
+        return mTrimmer.getFloor();
+    }
+
+    /**
+     * Set the number of pages kept to either side of the current page when the app is asked to
+     * trim memory, or {@link #trimOffscreenPages()} is called. ViewPager's window always spans
+     * at least one page on either side; with a floor of 0 those pages are destroyed anyway and
+     * instantiated again once the user pages on or starts scrolling. This setting defaults to 0.
+     *
+     * @param floor How many pages survive a trim on either side
+     */
+    public void setTrimmedPageFloor(int floor) {
+        if (floor < 0) {
+            Log.w(TAG, "Requested trimmed page floor " + floor + " too small; defaulting to 0");
+            floor = 0;
+        }
+        if (floor != mTrimmer.getFloor()) {
+            mTrimmer.setFloor(floor);
+            if (mTrimmer.isTrimmed()) {
+                mTrimmer.trim();
+            }
+        }
+    }
+
+    /**
+     * Returns how many pages were destroyed because of memory pressure.
+     *
+     * @return Evicted page count
+     */
+    public int getEvictedPageCount() {
+        return mTrimmer.getEvictedCount();
+    }
+
+    /**
+     * Returns how many pages destroyed because of memory pressure were instantiated again.
+     *
+     * @return Rebuilt page count
+     */
+    public int getRebuiltPageCount() {
+        return mTrimmer.getRebuiltCount();
+    }
+
+    /**
+     * Returns the number of pages instantiated ahead of the direction of travel, beyond the
+     * offscreen page limit, while the main thread is idle.
+     *
+     * @return How many pages are prefetched
+     * @see #setPrefetchPageCount(int)
+     */
+    public int getPrefetchPageCount() {
+        return mPrefetchPageCount;
+    }
+
+    /**
+     * Set the number of pages that should be instantiated ahead of the direction of travel,
+     * beyond the offscreen page limit. They are created while the main thread is idle between
+     * frames and handed to ViewPager when the user pages on. This setting defaults to 0, which
+     * disables prefetching.
+     *
+     * @param count How many pages to prefetch in the direction of travel.
+     */
+    public void setPrefetchPageCount(int count) {
+        if (count < 0) {
+            Log.w(TAG, "Requested prefetch page count " + count + " too small; defaulting to 0");
+            count = 0;
+        }
+        if (count != mPrefetchPageCount) {
+            mPrefetchPageCount = count;
+            trimPrefetchedPages();
+            if (getPrefetchReach() > 0 && mTravelDirection != 0) {
+                mPrefetcher.schedule();
+            }
+        }
+    }
+
 }
@@ -37,6 +37,8 @@ public class MultiVerticalViewPager extends VerticalViewPager {
 
     private static final int DEFAULT_DURATION = 800;
 
+    private static final String TRACE_ARROW_SCROLL_TAG = "MVVP ArrowScroll";
+
     private View mFocusView = null;
 
     /**
@@ -109,17 +111,25 @@ public class MultiVerticalViewPager extends VerticalViewPager {
 
     @Override
     public boolean arrowScroll(int direction) {
+        Tracer.beginSection(TRACE_ARROW_SCROLL_TAG);
+        boolean handled = !isFocusAtEdge(direction) && super.arrowScroll(direction);
+        Tracer.endSection();
+        return handled;
+    }
+
+    /**
+     * Whether focus must stay on the current page, as no view in the passed direction can
+     * take it and scrolling with focus on pages is disabled.
+     */
+    private boolean isFocusAtEdge(int direction) {
         if (mFocusView != null && !mScrollFocusPager) {
             if (direction == FOCUS_UP || direction == FOCUS_DOWN) {
                 View nextFocus = FocusFinder.getInstance()
                         .findNextFocus(this, mFocusView, direction);
-                if (nextFocus == null) {
-                    return false;
-                }
+                return nextFocus == null;
             }
         }
-
-        return super.arrowScroll(direction);
+        return false;
     }
 
     public int getDuration() {
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+/**
+ * Decides how many pages a pager keeps on either side of the current page, on top of the
+ * offscreen page limit it was given. Set on {@link VerticalViewPager} or
+ * {@link MultiHorizontalViewPager} to replace their fixed window.
+ *
+ * @author Clendy
+ * @see AdaptiveOffscreenPagePolicy
+ */
+public interface OffscreenPagePolicy {
+
+    /**
+     * Called when the pager's current page changes.
+     *
+     * @param position  new current page
+     * @param direction 1 if the position increased, -1 if it decreased
+     * @param eventTime time of the change, in {@link android.os.SystemClock#uptimeMillis()}
+     */
+    void onPageSelected(int position, int direction, long eventTime);
+
+    /**
+     * Called when the pager has been settled for a while without a page change.
+     */
+    void onIdle();
+
+    /**
+     * Gets the number of pages to keep before the current page.
+     *
+     * @param offscreenPageLimit offscreen page limit of the pager
+     * @return page count, values below 1 are treated as 1
+     */
+    int getPagesBefore(int offscreenPageLimit);
+
+    /**
+     * Gets the number of pages to keep after the current page.
+     *
+     * @param offscreenPageLimit offscreen page limit of the pager
+     * @return page count, values below 1 are treated as 1
+     */
+    int getPagesAfter(int offscreenPageLimit);
+}
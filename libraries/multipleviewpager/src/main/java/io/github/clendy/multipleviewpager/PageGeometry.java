@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import java.util.List;
+
+/**
+ * Page offset math of {@link VerticalViewPager}. It is free of Android types, so it can be
+ * benchmarked on a plain JVM. Offsets and sizes are fractions of the pager's client height, items
+ * are ordered by adapter position.
+ *
+ * @author Clendy
+ */
+final class PageGeometry {
+
+    /**
+     * Supplies sizes of pages, including ones that are not populated.
+     */
+    interface PageSizes {
+
+        /**
+         * @param position adapter position
+         * @return page size as a fraction of the client height
+         */
+        float getPageSize(int position);
+    }
+
+    private final PageSizes mPageSizes;
+
+    // Offsets of the first and last items, if known.
+    // Set during population, used to determine if we are at the beginning
+    // or end of the pager data set during touch scrolling.
+    private float mFirstOffset = -Float.MAX_VALUE;
+    private float mLastOffset = Float.MAX_VALUE;
+
+    // Offsets and sizes of all pages between the first and last populated item, including
+    // unpopulated gaps, so the page under a scroll offset is found by binary search.
+    private float[] mTableOffsets = new float[0];
+    private float[] mTableSizes = new float[0];
+    private int mTableFirstPosition;
+    private int mTableCount;
+    private float mTableMarginOffset;
+    private boolean mTableValid;
+
+    PageGeometry(PageSizes pageSizes) {
+        mPageSizes = pageSizes;
+    }
+
+    float getFirstOffset() {
+        return mFirstOffset;
+    }
+
+    float getLastOffset() {
+        return mLastOffset;
+    }
+
+    /**
+     * Lays out offsets of all items around the current one.
+     *
+     * @param items        populated items
+     * @param curItem      current item
+     * @param curIndex     index of the current item in items
+     * @param oldCurInfo   previous current item whose offset is kept, may be null
+     * @param count        adapter item count
+     * @param marginOffset page margin as a fraction of the client height
+     */
+    void calculatePageOffsets(List<ItemInfo> items, ItemInfo curItem, int curIndex,
+                              ItemInfo oldCurInfo, int count, float marginOffset) {
+        // Fix up offsets for later layout.
+        if (oldCurInfo != null) {
+            final int oldCurPosition = oldCurInfo.position;
+            // Base offsets off of oldCurInfo.
+            if (oldCurPosition < curItem.position) {
+                int itemIndex = 0;
+                ItemInfo ii = null;
+                float offset = oldCurInfo.offset + oldCurInfo.heightFactor + marginOffset;
+                for (int pos = oldCurPosition + 1;
+                     pos <= curItem.position && itemIndex < items.size(); pos++) {
+                    ii = items.get(itemIndex);
+                    while (pos > ii.position && itemIndex < items.size() - 1) {
+                        itemIndex++;
+                        ii = items.get(itemIndex);
+                    }
+                    while (pos < ii.position) {
+                        // We don't have an item populated for this,
+                        // ask the adapter for an offset.
+                        offset += mPageSizes.getPageSize(pos) + marginOffset;
+                        pos++;
+                    }
+                    ii.offset = offset;
+                    offset += ii.heightFactor + marginOffset;
+                }
+            } else if (oldCurPosition > curItem.position) {
+                int itemIndex = items.size() - 1;
+                ItemInfo ii = null;
+                float offset = oldCurInfo.offset;
+                for (int pos = oldCurPosition - 1;
+                     pos >= curItem.position && itemIndex >= 0; pos--) {
+                    ii = items.get(itemIndex);
+                    while (pos < ii.position && itemIndex > 0) {
+                        itemIndex--;
+                        ii = items.get(itemIndex);
+                    }
+                    while (pos > ii.position) {
+                        // We don't have an item populated for this,
+                        // ask the adapter for an offset.
+                        offset -= mPageSizes.getPageSize(pos) + marginOffset;
+                        pos--;
+                    }
+                    offset -= ii.heightFactor + marginOffset;
+                    ii.offset = offset;
+                }
+            }
+        }
+
+        // Base all offsets off of curItem.
+        final int itemCount = items.size();
+        float offset = curItem.offset;
+        int pos = curItem.position - 1;
+        mFirstOffset = curItem.position == 0 ? curItem.offset : -Float.MAX_VALUE;
+        mLastOffset = curItem.position == count - 1 ?
+                curItem.offset + curItem.heightFactor - 1 : Float.MAX_VALUE;
+        // Previous pages
+        for (int i = curIndex - 1; i >= 0; i--, pos--) {
+            final ItemInfo ii = items.get(i);
+            while (pos > ii.position) {
+                offset -= mPageSizes.getPageSize(pos--) + marginOffset;
+            }
+            offset -= ii.heightFactor + marginOffset;
+            ii.offset = offset;
+            if (ii.position == 0) mFirstOffset = offset;
+        }
+        offset = curItem.offset + curItem.heightFactor + marginOffset;
+        pos = curItem.position + 1;
+        // Next pages
+        for (int i = curIndex + 1; i < itemCount; i++, pos++) {
+            final ItemInfo ii = items.get(i);
+            while (pos < ii.position) {
+                offset += mPageSizes.getPageSize(pos++) + marginOffset;
+            }
+            if (ii.position == count - 1) {
+                mLastOffset = offset + ii.heightFactor - 1;
+            }
+            ii.offset = offset;
+            offset += ii.heightFactor + marginOffset;
+        }
+
+        buildScrollTable(items, marginOffset);
+    }
+
+    /**
+     * Drops the scroll lookup table after items changed without their offsets being
+     * recalculated. It is rebuilt on the next lookup.
+     */
+    void invalidateScrollTable() {
+        mTableValid = false;
+    }
+
+    private void buildScrollTable(List<ItemInfo> items, float marginOffset) {
+        mTableCount = 0;
+        mTableMarginOffset = marginOffset;
+        mTableValid = true;
+
+        final int itemCount = items.size();
+        if (itemCount == 0) {
+            return;
+        }
+        final int firstPosition = items.get(0).position;
+        final int span = items.get(itemCount - 1).position - firstPosition + 1;
+        if (mTableOffsets.length < span) {
+            final int capacity = Math.max(span, mTableOffsets.length * 2);
+            mTableOffsets = new float[capacity];
+            mTableSizes = new float[capacity];
+        }
+        mTableFirstPosition = firstPosition;
+
+        int index = 0;
+        float nextOffset = items.get(0).offset;
+        for (int i = 0; i < itemCount; i++) {
+            final ItemInfo ii = items.get(i);
+            int pos = firstPosition + index;
+            while (pos < ii.position) {
+                // Unpopulated page, placed right after the previous one.
+                final float size = mPageSizes.getPageSize(pos);
+                mTableOffsets[index] = nextOffset;
+                mTableSizes[index] = size;
+                nextOffset = nextOffset + size + marginOffset;
+                index++;
+                pos++;
+            }
+            if (pos > ii.position) {
+                continue;
+            }
+            mTableOffsets[index] = ii.offset;
+            mTableSizes[index] = ii.heightFactor;
+            nextOffset = ii.offset + ii.heightFactor + marginOffset;
+            index++;
+        }
+        mTableCount = index;
+    }
+
+    /**
+     * Finds the page under a scroll offset. Pages between populated items count as well.
+     *
+     * @param items        populated items
+     * @param scrollOffset scroll position as a fraction of the client height
+     * @param marginOffset page margin as a fraction of the client height
+     * @return adapter position of the last page starting at or above the scroll offset, the
+     * first page if there is none, or -1 without items
+     */
+    int pageForScrollOffset(List<ItemInfo> items, float scrollOffset, float marginOffset) {
+        if (!mTableValid || mTableMarginOffset != marginOffset) {
+            buildScrollTable(items, marginOffset);
+        }
+        if (mTableCount == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = mTableCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (mTableOffsets[mid] <= scrollOffset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return mTableFirstPosition + low;
+    }
+
+    /**
+     * @param position page returned by {@link #pageForScrollOffset}
+     * @return offset of the page
+     */
+    float getPageOffset(int position) {
+        return mTableOffsets[position - mTableFirstPosition];
+    }
+
+    /**
+     * @param position page returned by {@link #pageForScrollOffset}
+     * @return size of the page
+     */
+    float getPageHeight(int position) {
+        return mTableSizes[position - mTableFirstPosition];
+    }
+
+    /**
+     * Picks the page to settle on when a drag ends.
+     *
+     * @param items           populated items
+     * @param currentPage     page under the scroll position
+     * @param curItem         current item of the pager
+     * @param pageOffset      offset into currentPage, as a fraction of its size
+     * @param velocity        release velocity, in pixels per second
+     * @param deltaY          total drag distance, in pixels
+     * @param flingDistance   minimum drag distance of a fling, in pixels
+     * @param minimumVelocity minimum velocity of a fling, in pixels per second
+     * @return target page, limited to populated items
+     */
+    static int determineTargetPage(List<ItemInfo> items, int currentPage, int curItem,
+                                   float pageOffset, int velocity, int deltaY,
+                                   int flingDistance, int minimumVelocity) {
+        int targetPage;
+        if (Math.abs(deltaY) > flingDistance && Math.abs(velocity) > minimumVelocity) {
+            targetPage = velocity > 0 ? currentPage : currentPage + 1;
+        } else {
+            final float truncator = currentPage >= curItem ? 0.4f : 0.6f;
+            targetPage = (int) (currentPage + pageOffset + truncator);
+        }
+
+        if (items.size() > 0) {
+            final ItemInfo firstItem = items.get(0);
+            final ItemInfo lastItem = items.get(items.size() - 1);
+
+            // Only let the user target pages we have items for
+            targetPage = Math.max(firstItem.position, Math.min(targetPage, lastItem.position));
+        }
+
+        return targetPage;
+    }
+}
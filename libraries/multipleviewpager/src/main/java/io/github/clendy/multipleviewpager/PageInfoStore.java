@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Populated pages of {@link VerticalViewPager}, ordered by adapter position. Items live in a
+ * ring buffer, so inserting or evicting at either end of the offscreen window is O(1). Lookups
+ * by position are O(1) while positions are contiguous, which they are outside of data set changes
+ * and long smooth scrolls, and a binary search otherwise.
+ *
+ * @author Clendy
+ */
+final class PageInfoStore extends AbstractList<ItemInfo> implements RandomAccess {
+
+    private static final int MIN_CAPACITY = 8;
+
+    // capacity is always a power of two
+    private ItemInfo[] mSlots = new ItemInfo[MIN_CAPACITY];
+    private int mHead;
+    private int mSize;
+
+    private int slot(int index) {
+        return (mHead + index) & (mSlots.length - 1);
+    }
+
+    private void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+
+    @Override
+    public ItemInfo get(int index) {
+        checkIndex(index, mSize);
+        return mSlots[slot(index)];
+    }
+
+    @Override
+    public ItemInfo set(int index, ItemInfo ii) {
+        checkIndex(index, mSize);
+        final int slot = slot(index);
+        final ItemInfo old = mSlots[slot];
+        mSlots[slot] = ii;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public void add(int index, ItemInfo ii) {
+        checkIndex(index, mSize + 1);
+        if (mSize == mSlots.length) {
+            grow();
+        }
+        final int mask = mSlots.length - 1;
+        if (index < mSize / 2) {
+            // shift the front part one slot towards the head
+            mHead = (mHead - 1) & mask;
+            for (int i = 0; i < index; i++) {
+                mSlots[slot(i)] = mSlots[slot(i + 1)];
+            }
+        } else {
+            for (int i = mSize; i > index; i--) {
+                mSlots[slot(i)] = mSlots[slot(i - 1)];
+            }
+        }
+        mSlots[slot(index)] = ii;
+        mSize++;
+        modCount++;
+    }
+
+    @Override
+    public ItemInfo remove(int index) {
+        checkIndex(index, mSize);
+        final ItemInfo removed = mSlots[slot(index)];
+        final int mask = mSlots.length - 1;
+        if (index < mSize / 2) {
+            for (int i = index; i > 0; i--) {
+                mSlots[slot(i)] = mSlots[slot(i - 1)];
+            }
+            mSlots[mHead] = null;
+            mHead = (mHead + 1) & mask;
+        } else {
+            for (int i = index; i < mSize - 1; i++) {
+                mSlots[slot(i)] = mSlots[slot(i + 1)];
+            }
+            mSlots[slot(mSize - 1)] = null;
+        }
+        mSize--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mSlots, null);
+        mHead = 0;
+        mSize = 0;
+        modCount++;
+    }
+
+    private void grow() {
+        final ItemInfo[] slots = new ItemInfo[mSlots.length * 2];
+        for (int i = 0; i < mSize; i++) {
+            slots[i] = mSlots[slot(i)];
+        }
+        mSlots = slots;
+        mHead = 0;
+    }
+
+    /**
+     * Gets index of the first item whose position is not less than the passed one.
+     *
+     * @param position adapter position
+     * @return index in range [0, size]
+     */
+    int ceilingIndex(int position) {
+        if (mSize == 0) {
+            return 0;
+        }
+        final int guess = position - get(0).position;
+        if (guess <= 0) {
+            return 0;
+        }
+        if (guess < mSize && get(guess).position == position) {
+            return guess;
+        }
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midPosition = get(mid).position;
+            if (midPosition < position) {
+                low = mid + 1;
+            } else if (midPosition > position) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the item of an adapter position.
+     *
+     * @param position adapter position
+     * @return item, or null if the position is not populated
+     */
+    ItemInfo getByPosition(int position) {
+        final int index = ceilingIndex(position);
+        if (index < mSize) {
+            final ItemInfo ii = get(index);
+            if (ii.position == position) {
+                return ii;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * Instantiates pages ahead of the direction of travel while the main thread is idle, so the
+ * adapter's {@code instantiateItem} cost does not land in the frame that starts a page change.
+ * <p>
+ * While the pager is scrolling, work is only started if its running average cost fits before
+ * the next frame is due. Otherwise pages are prefetched one frame interval at a time.
+ *
+ * @author Clendy
+ */
+final class PagePrefetcher implements MessageQueue.IdleHandler {
+
+    /**
+     * Pager side of the prefetcher.
+     */
+    interface Host {
+
+        /**
+         * @return next position to prefetch, or -1 if there is nothing left to do
+         */
+        int nextPrefetchPosition();
+
+        /**
+         * Instantiates the page at the passed position, keeping it until the pager needs it.
+         *
+         * @param position adapter position returned by {@link #nextPrefetchPosition()}
+         */
+        void prefetchPage(int position);
+
+        /**
+         * @return true while frames are being produced, so work must fit between them
+         */
+        boolean isScrolling();
+    }
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final View mView;
+    private final Host mHost;
+
+    private final Runnable mWakeUp = new Runnable() {
+        @Override
+        public void run() {
+            // Only here to make the message queue go idle again.
+        }
+    };
+
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long mLastFrameNanos;
+    private long mAverageCostNanos;
+    private boolean mScheduled;
+
+    PagePrefetcher(View view, Host host) {
+        mView = view;
+        mHost = host;
+    }
+
+    /**
+     * Reads the refresh rate of the display the pager is shown on.
+     */
+    void onAttachedToWindow() {
+        WindowManager wm = (WindowManager) mView.getContext()
+                .getSystemService(Context.WINDOW_SERVICE);
+        Display display = wm != null ? wm.getDefaultDisplay() : null;
+        float refreshRate = display != null ? display.getRefreshRate() : 0;
+        mFrameIntervalNanos = refreshRate >= 30f
+                ? (long) (1000000000L / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    /**
+     * Records that a frame is being drawn, from which the next deadline is derived.
+     */
+    void onFrame() {
+        mLastFrameNanos = System.nanoTime();
+    }
+
+    /**
+     * Makes the prefetcher run the next time the main thread is idle.
+     */
+    void schedule() {
+        if (!mScheduled) {
+            mScheduled = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    void cancel() {
+        if (mScheduled) {
+            mScheduled = false;
+            Looper.myQueue().removeIdleHandler(this);
+            mView.removeCallbacks(mWakeUp);
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (!mScheduled) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        final long deadline;
+        if (mHost.isScrolling() && mLastFrameNanos > 0) {
+            // the next frame is due one interval after the last one that was drawn
+            final long framesSince = (start - mLastFrameNanos) / mFrameIntervalNanos;
+            deadline = mLastFrameNanos + (framesSince + 1) * mFrameIntervalNanos;
+            if (start + mAverageCostNanos > deadline) {
+                return true;
+            }
+        } else {
+            deadline = start + mFrameIntervalNanos;
+        }
+
+        long now = start;
+        do {
+            final int position = mHost.nextPrefetchPosition();
+            if (position < 0) {
+                mScheduled = false;
+                return false;
+            }
+            mHost.prefetchPage(position);
+
+            final long end = System.nanoTime();
+            final long cost = end - now;
+            mAverageCostNanos = mAverageCostNanos == 0
+                    ? cost : mAverageCostNanos / 4 * 3 + cost / 4;
+            now = end;
+        } while (now + mAverageCostNanos < deadline);
+
+        // more work is left, continue on a later idle
+        mView.post(mWakeUp);
+        return true;
+    }
+}
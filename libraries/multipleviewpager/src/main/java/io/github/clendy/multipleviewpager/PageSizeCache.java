@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import java.util.Arrays;
+
+/**
+ * Remembers page sizes read from another {@link PageGeometry.PageSizes}, so offset calculation,
+ * margin drawing and scroll lookup do not call back into the adapter every frame. Sizes are
+ * assumed to only change along with a data set change, which must {@link #invalidate()} the
+ * cache.
+ *
+ * @author Clendy
+ */
+final class PageSizeCache implements PageGeometry.PageSizes {
+
+    /**
+     * Positions beyond this are not cached, so huge adapters do not allocate huge tables.
+     */
+    private static final int MAX_CACHED_POSITIONS = 1 << 14;
+    private static final int MIN_CAPACITY = 16;
+
+    private final PageGeometry.PageSizes mSource;
+    // NaN marks sizes that have not been read yet
+    private float[] mSizes = new float[0];
+
+    PageSizeCache(PageGeometry.PageSizes source) {
+        mSource = source;
+    }
+
+    @Override
+    public float getPageSize(int position) {
+        if (position < 0 || position >= MAX_CACHED_POSITIONS) {
+            return mSource.getPageSize(position);
+        }
+        if (position >= mSizes.length) {
+            grow(position + 1);
+        }
+        float size = mSizes[position];
+        if (Float.isNaN(size)) {
+            size = mSource.getPageSize(position);
+            mSizes[position] = size;
+        }
+        return size;
+    }
+
+    /**
+     * Forgets all cached sizes.
+     */
+    void invalidate() {
+        Arrays.fill(mSizes, Float.NaN);
+    }
+
+    private void grow(int minCapacity) {
+        final int capacity = Math.min(MAX_CACHED_POSITIONS,
+                Math.max(minCapacity, Math.max(MIN_CAPACITY, mSizes.length * 2)));
+        final int oldLength = mSizes.length;
+        mSizes = Arrays.copyOf(mSizes, capacity);
+        Arrays.fill(mSizes, oldLength, capacity, Float.NaN);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.SparseBooleanArray;
+
+/**
+ * Listens to trim-memory signals for a pager and keeps count of the pages destroyed by
+ * {@link Host#onTrimPages()} and instantiated again later. While trimmed, the pager keeps no
+ * more offscreen pages than the floor, until the user pages on or starts scrolling.
+ *
+ * @author Clendy
+ */
+final class PageTrimmer implements ComponentCallbacks2 {
+
+    /**
+     * Pager side of the trimmer.
+     */
+    interface Host {
+
+        /**
+         * Destroys offscreen pages down to the floor.
+         */
+        void onTrimPages();
+    }
+
+    private final Host mHost;
+    private Context mContext;
+
+    private int mFloor;
+    private boolean mTrimmed;
+    // true while the host destroys pages for a trim
+    private boolean mEvicting;
+    private int mEvictedCount;
+    private int mRebuiltCount;
+    // positions destroyed while trimmed, not instantiated again yet
+    private final SparseBooleanArray mEvictedPositions = new SparseBooleanArray();
+
+    PageTrimmer(Host host) {
+        mHost = host;
+    }
+
+    void register(Context context) {
+        if (mContext == null) {
+            mContext = context.getApplicationContext();
+            mContext.registerComponentCallbacks(this);
+        }
+    }
+
+    void unregister() {
+        if (mContext != null) {
+            mContext.unregisterComponentCallbacks(this);
+            mContext = null;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trim();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    void trim() {
+        mTrimmed = true;
+        mEvicting = true;
+        try {
+            mHost.onTrimPages();
+        } finally {
+            mEvicting = false;
+        }
+    }
+
+    boolean isTrimmed() {
+        return mTrimmed;
+    }
+
+    /**
+     * Leaves the trimmed state, the pager rebuilds its window from here on.
+     *
+     * @return true if the pager was trimmed
+     */
+    boolean restore() {
+        final boolean trimmed = mTrimmed;
+        mTrimmed = false;
+        return trimmed;
+    }
+
+    int getFloor() {
+        return mFloor;
+    }
+
+    void setFloor(int floor) {
+        mFloor = floor;
+    }
+
+    /**
+     * Counts the page as evicted if it is destroyed by {@link Host#onTrimPages()}. Pages
+     * destroyed otherwise, e.g. because they left the data set, are not counted.
+     */
+    void onPageDestroyed(int position) {
+        if (mEvicting) {
+            mEvictedCount++;
+            mEvictedPositions.put(position, true);
+        }
+    }
+
+    void onPageInstantiated(int position) {
+        final int index = mEvictedPositions.indexOfKey(position);
+        if (index >= 0) {
+            mRebuiltCount++;
+            mEvictedPositions.removeAt(index);
+        }
+    }
+
+    /**
+     * Forgets evicted positions, as they no longer match the adapter's.
+     */
+    void onDataSetChanged() {
+        mEvictedPositions.clear();
+    }
+
+    int getEvictedCount() {
+        return mEvictedCount;
+    }
+
+    int getRebuiltCount() {
+        return mRebuiltCount;
+    }
+}
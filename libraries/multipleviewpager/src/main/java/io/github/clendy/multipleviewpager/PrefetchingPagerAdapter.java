@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import android.database.DataSetObserver;
+import android.os.Parcelable;
+import android.support.v4.util.Pools;
+import android.support.v4.view.PagerAdapter;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+/**
+ * Adapter set on {@link MultiHorizontalViewPager}'s ViewPager, passing everything on to the
+ * wrapped adapter. Pages prefetched while idle are held here, outside of ViewPager's own window,
+ * and handed out when ViewPager instantiates their position, which requests a layout of the
+ * pager so the adopted page gets measured and positioned.
+ * <p>
+ * ViewPager is handed a {@link Page} for each of the wrapped adapter's objects, so that
+ * {@link #evictPages(ViewGroup, int, int)} can destroy pages ViewPager keeps in its window and
+ * instantiate them again later without ViewPager noticing.
+ * <p>
+ * Prefetched pages are destroyed when the wrapped adapter's data set changes. Page creation and
+ * destruction is reported to the pager's {@link PageTrimmer}.
+ *
+ * @author Clendy
+ */
+final class PrefetchingPagerAdapter extends PagerAdapter {
+
+    private static final int MAX_POOLED_PAGES = 8;
+
+    /**
+     * What ViewPager holds for a page of the wrapped adapter.
+     */
+    private static final class Page {
+        // wrapped adapter's object, null while evicted
+        Object object;
+        int position;
+        boolean evicted;
+    }
+
+    private final PagerAdapter mAdapter;
+    private final PageTrimmer mTrimmer;
+    private final SparseArray<Object> mPrefetched = new SparseArray<>();
+    // pages handed out to ViewPager and not destroyed yet
+    private final ArrayList<Page> mPages = new ArrayList<>();
+    private final Pools.SimplePool<Page> mPagePool = new Pools.SimplePool<>(MAX_POOLED_PAGES);
+    private ViewGroup mContainer;
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            clear();
+            mTrimmer.onDataSetChanged();
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            clear();
+            mTrimmer.onDataSetChanged();
+            notifyDataSetChanged();
+        }
+    };
+
+    PrefetchingPagerAdapter(PagerAdapter adapter, PageTrimmer trimmer) {
+        mAdapter = adapter;
+        mTrimmer = trimmer;
+        mAdapter.registerDataSetObserver(mObserver);
+    }
+
+    PagerAdapter getWrappedAdapter() {
+        return mAdapter;
+    }
+
+    /**
+     * Destroys all prefetched pages and stops following the wrapped adapter.
+     */
+    void release() {
+        clear();
+        mAdapter.unregisterDataSetObserver(mObserver);
+    }
+
+    boolean isPrefetched(int position) {
+        return mPrefetched.indexOfKey(position) >= 0;
+    }
+
+    void prefetch(ViewGroup container, int position) {
+        mContainer = container;
+        mAdapter.startUpdate(container);
+        mPrefetched.put(position, mAdapter.instantiateItem(container, position));
+        mAdapter.finishUpdate(container);
+        mTrimmer.onPageInstantiated(position);
+    }
+
+    /**
+     * Destroys prefetched pages outside of the passed position range.
+     *
+     * @param start first position to keep
+     * @param end   last position to keep
+     */
+    void trim(int start, int end) {
+        boolean updating = false;
+        for (int i = mPrefetched.size() - 1; i >= 0; i--) {
+            final int position = mPrefetched.keyAt(i);
+            if (position >= start && position <= end) {
+                continue;
+            }
+            if (!updating) {
+                mAdapter.startUpdate(mContainer);
+                updating = true;
+            }
+            mAdapter.destroyItem(mContainer, position, mPrefetched.valueAt(i));
+            mPrefetched.removeAt(i);
+            mTrimmer.onPageDestroyed(position);
+        }
+        if (updating) {
+            mAdapter.finishUpdate(mContainer);
+        }
+    }
+
+    void clear() {
+        trim(0, -1);
+    }
+
+    /**
+     * Destroys the wrapped adapter's objects of pages ViewPager holds outside of the passed
+     * position range, and instantiates evicted pages inside of it again. ViewPager keeps the
+     * evicted pages in its window, they are rebuilt once ViewPager makes one of them primary or
+     * {@link #restorePages(ViewGroup)} is called.
+     *
+     * @param container ViewPager
+     * @param start     first position to keep
+     * @param end       last position to keep
+     */
+    void evictPages(ViewGroup container, int start, int end) {
+        boolean updating = false;
+        for (int i = 0; i < mPages.size(); i++) {
+            final Page page = mPages.get(i);
+            final boolean keep = page.position >= start && page.position <= end;
+            if (keep != page.evicted) {
+                continue;
+            }
+            if (!updating) {
+                mAdapter.startUpdate(container);
+                updating = true;
+            }
+            if (keep) {
+                rebuildPage(container, page);
+            } else {
+                mAdapter.destroyItem(container, page.position, page.object);
+                page.object = null;
+                page.evicted = true;
+                mTrimmer.onPageDestroyed(page.position);
+            }
+        }
+        if (updating) {
+            mAdapter.finishUpdate(container);
+        }
+    }
+
+    /**
+     * Instantiates all evicted pages again.
+     *
+     * @param container ViewPager
+     */
+    void restorePages(ViewGroup container) {
+        evictPages(container, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private void rebuildPage(ViewGroup container, Page page) {
+        page.object = mAdapter.instantiateItem(container, page.position);
+        page.evicted = false;
+        mTrimmer.onPageInstantiated(page.position);
+    }
+
+    private Page obtainPage(Object object, int position) {
+        Page page = mPagePool.acquire();
+        if (page == null) {
+            page = new Page();
+        }
+        page.object = object;
+        page.position = position;
+        page.evicted = false;
+        mPages.add(page);
+        return page;
+    }
+
+    private void releasePage(Page page) {
+        mPages.remove(page);
+        page.object = null;
+        mPagePool.release(page);
+    }
+
+    @Override
+    public int getCount() {
+        return mAdapter.getCount();
+    }
+
+    @Override
+    public void startUpdate(ViewGroup container) {
+        mAdapter.startUpdate(container);
+    }
+
+    @Override
+    public Object instantiateItem(ViewGroup container, int position) {
+        final int index = mPrefetched.indexOfKey(position);
+        if (index >= 0) {
+            final Object object = mPrefetched.valueAt(index);
+            mPrefetched.removeAt(index);
+            // ViewPager skipped the page while it sat outside its window, so it is still unsized
+            // and unpositioned; the next pass measures it with the width factor populate() sets
+            container.requestLayout();
+            return obtainPage(object, position);
+        }
+        final Object object = mAdapter.instantiateItem(container, position);
+        mTrimmer.onPageInstantiated(position);
+        return obtainPage(object, position);
+    }
+
+    @Override
+    public void destroyItem(ViewGroup container, int position, Object object) {
+        final Page page = (Page) object;
+        if (!page.evicted) {
+            mAdapter.destroyItem(container, position, page.object);
+            mTrimmer.onPageDestroyed(position);
+        }
+        releasePage(page);
+    }
+
+    @Override
+    public void setPrimaryItem(ViewGroup container, int position, Object object) {
+        final Page page = (Page) object;
+        if (page != null && page.evicted) {
+            // called from populate() between startUpdate() and finishUpdate()
+            rebuildPage(container, page);
+        }
+        mAdapter.setPrimaryItem(container, position, page != null ? page.object : null);
+    }
+
+    @Override
+    public void finishUpdate(ViewGroup container) {
+        mAdapter.finishUpdate(container);
+    }
+
+    @Override
+    public boolean isViewFromObject(View view, Object object) {
+        final Page page = (Page) object;
+        return !page.evicted && mAdapter.isViewFromObject(view, page.object);
+    }
+
+    @Override
+    public Parcelable saveState() {
+        return mAdapter.saveState();
+    }
+
+    @Override
+    public void restoreState(Parcelable state, ClassLoader loader) {
+        mAdapter.restoreState(state, loader);
+    }
+
+    @Override
+    public int getItemPosition(Object object) {
+        final Page page = (Page) object;
+        if (page.evicted) {
+            // let ViewPager drop it and instantiate whatever the data set has there now
+            return POSITION_NONE;
+        }
+        final int position = mAdapter.getItemPosition(page.object);
+        if (position >= 0) {
+            page.position = position;
+        }
+        return position;
+    }
+
+    @Override
+    public CharSequence getPageTitle(int position) {
+        return mAdapter.getPageTitle(position);
+    }
+
+    @Override
+    public float getPageWidth(int position) {
+        return mAdapter.getPageWidth(position);
+    }
+}
@@ -14,6 +14,7 @@ import android.os.Parcelable;
 import android.os.SystemClock;
 import android.support.v4.os.ParcelableCompat;
 import android.support.v4.os.ParcelableCompatCreatorCallbacks;
+import android.support.v4.util.Pools;
 import android.support.v4.view.AccessibilityDelegateCompat;
 import android.support.v4.view.KeyEventCompat;
 import android.support.v4.view.MotionEventCompat;
@@ -60,7 +61,14 @@ public class VerticalViewPager extends ViewGroup {
 
     private static final boolean USE_CACHE = false;
 
+    private static final String TRACE_POPULATE_TAG = "VVP Populate";
+    private static final String TRACE_DATA_SET_CHANGED_TAG = "VVP DataSetChanged";
+    private static final String TRACE_ON_MEASURE_TAG = "VVP OnMeasure";
+    private static final String TRACE_ON_LAYOUT_TAG = "VVP OnLayout";
+
     private static final int DEFAULT_OFFSCREEN_PAGES = 1;
+    private static final int MAX_POOLED_ITEM_INFOS = 8;
+    private static final int POLICY_IDLE_DELAY = 500; // ms
     private static final int MAX_SETTLE_DURATION = 600; // ms
     private static final int MIN_DISTANCE_FOR_FLING = 25; // dips
 
@@ -78,14 +86,6 @@ public class VerticalViewPager extends ViewGroup {
      */
     private int mExpectedAdapterCount;
 
-    static class ItemInfo {
-        Object object;
-        int position;
-        boolean scrolling;
-        float heightFactor;
-        float offset;
-    }
-
     private static final Comparator<ItemInfo> COMPARATOR = new Comparator<ItemInfo>() {
         @Override
         public int compare(ItemInfo lhs, ItemInfo rhs) {
@@ -100,8 +100,51 @@ public class VerticalViewPager extends ViewGroup {
         }
     };
 
-    private final ArrayList<ItemInfo> mItems = new ArrayList<ItemInfo>();
-    private final ItemInfo mTempItem = new ItemInfo();
+    private final PageInfoStore mItems = new PageInfoStore();
+    private final PageSizeCache mPageSizes = new PageSizeCache(new PageGeometry.PageSizes() {
+        @Override
+        public float getPageSize(int position) {
+            return mAdapter.getPageWidth(position);
+        }
+    });
+    private final PageGeometry mGeometry = new PageGeometry(mPageSizes);
+
+    /**
+     * Records of destroyed pages, handed out again by {@link #addNewItem(int, int)}.
+     */
+    private final Pools.SimplePool<ItemInfo> mItemInfoPool =
+            new Pools.SimplePool<>(MAX_POOLED_ITEM_INFOS);
+    /**
+     * Copy of the previous current item, which may be destroyed and recycled while populating.
+     */
+    private final ItemInfo mOldCurInfo = new ItemInfo();
+
+    private final PagePrefetcher mPrefetcher = new PagePrefetcher(this, new PagePrefetcher.Host() {
+        @Override
+        public int nextPrefetchPosition() {
+            return VerticalViewPager.this.nextPrefetchPosition();
+        }
+
+        @Override
+        public void prefetchPage(int position) {
+            VerticalViewPager.this.prefetchPage(position);
+        }
+
+        @Override
+        public boolean isScrolling() {
+            return mScrollState != SCROLL_STATE_IDLE;
+        }
+    });
+    private int mPrefetchPageCount;
+    private final PageTrimmer mTrimmer = new PageTrimmer(new PageTrimmer.Host() {
+        @Override
+        public void onTrimPages() {
+            mPrefetcher.cancel();
+            populate();
+        }
+    });
+    // 1 when paging down, -1 when paging up, 0 before the first page change
+    private int mTravelDirection;
 
     private final Rect mTempRect = new Rect();
 
@@ -117,12 +160,8 @@ public class VerticalViewPager extends ViewGroup {
     private Drawable mMarginDrawable;
     private int mLeftPageBounds;
     private int mRightPageBounds;
-
-    // Offsets of the first and last items, if known.
-    // Set during population, used to determine if we are at the beginning
-    // or end of the pager data set during touch scrolling.
-    private float mFirstOffset = -Float.MAX_VALUE;
-    private float mLastOffset = Float.MAX_VALUE;
+    private int mTopPageBounds;
+    private int mBottomPageBounds;
 
     private int mChildWidthMeasureSpec;
     private int mChildHeightMeasureSpec;
@@ -132,6 +171,16 @@ public class VerticalViewPager extends ViewGroup {
 
     private boolean mPopulatePending;
     private int mOffscreenPageLimit = DEFAULT_OFFSCREEN_PAGES;
+    private OffscreenPagePolicy mOffscreenPagePolicy;
+    private final Runnable mPolicyIdleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mOffscreenPagePolicy != null) {
+                mOffscreenPagePolicy.onIdle();
+                populate();
+            }
+        }
+    };
 
     private boolean mIsBeingDragged;
     private boolean mIsUnableToDrag;
@@ -276,6 +325,9 @@ public class VerticalViewPager extends ViewGroup {
     @Override
     protected void onDetachedFromWindow() {
         removeCallbacks(mEndScrollRunnable);
+        removeCallbacks(mPolicyIdleRunnable);
+        mPrefetcher.cancel();
+        mTrimmer.unregister();
         super.onDetachedFromWindow();
     }
 
@@ -285,6 +337,16 @@ public class VerticalViewPager extends ViewGroup {
         }
 
         mScrollState = newState;
+        if (newState != SCROLL_STATE_IDLE && mTrimmer.restore()) {
+            populate();
+        }
+        if (mOffscreenPagePolicy != null) {
+            if (newState == SCROLL_STATE_IDLE) {
+                postDelayed(mPolicyIdleRunnable, POLICY_IDLE_DELAY);
+            } else {
+                removeCallbacks(mPolicyIdleRunnable);
+            }
+        }
         if (mPageTransformer != null) {
             // PageTransformers can do complex things that benefit from hardware layers.
             enableLayers(newState != SCROLL_STATE_IDLE);
@@ -304,9 +366,15 @@ public class VerticalViewPager extends ViewGroup {
             for (int i = 0; i < mItems.size(); i++) {
                 final ItemInfo ii = mItems.get(i);
                 mAdapter.destroyItem(this, ii.position, ii.object);
+                releaseItemInfo(ii);
             }
             mAdapter.finishUpdate(this);
             mItems.clear();
+            mPrefetcher.cancel();
+            mTravelDirection = 0;
+            mTrimmer.onDataSetChanged();
+            mPageSizes.invalidate();
+            mGeometry.invalidateScrollTable();
             removeNonDecorViews();
             mCurItem = 0;
             scrollTo(0, 0);
@@ -453,8 +521,8 @@ public class VerticalViewPager extends ViewGroup {
         int destY = 0;
         if (curInfo != null) {
             final int height = getClientHeight();
-            destY = (int) (height * Math.max(mFirstOffset,
-                    Math.min(curInfo.offset, mLastOffset)));
+            destY = (int) (height * Math.max(mGeometry.getFirstOffset(),
+                    Math.min(curInfo.offset, mGeometry.getLastOffset())));
         }
         if (smoothScroll) {
             smoothScrollTo(0, destY, velocity);
@@ -618,6 +686,135 @@ public class VerticalViewPager extends ViewGroup {
         }
     }
 
+    /**
+     * Returns the policy adapting the offscreen page window, if any.
+     *
+     * @return Policy, or null if the window is fixed by the offscreen page limit
+     * @see #setOffscreenPagePolicy(OffscreenPagePolicy)
+     */
+    public OffscreenPagePolicy getOffscreenPagePolicy() {
+        return mOffscreenPagePolicy;
+    }
+
+    /**
+     * Set a policy deciding how many pages are retained to either side of the current page,
+     * based on the offscreen page limit and how the user pages, e.g. an
+     * {@link AdaptiveOffscreenPagePolicy}. Pass null to retain exactly the offscreen page limit.
+     *
+     * @param policy Policy to use, or null
+     */
+    public void setOffscreenPagePolicy(OffscreenPagePolicy policy) {
+        if (policy != mOffscreenPagePolicy) {
+            removeCallbacks(mPolicyIdleRunnable);
+            mOffscreenPagePolicy = policy;
+            populate();
+        }
+    }
+
+    private int getPagesBefore() {
+        return mOffscreenPagePolicy == null ? mOffscreenPageLimit : Math.max(
+                DEFAULT_OFFSCREEN_PAGES, mOffscreenPagePolicy.getPagesBefore(mOffscreenPageLimit));
+    }
+
+    private int getPagesAfter() {
+        return mOffscreenPagePolicy == null ? mOffscreenPageLimit : Math.max(
+                DEFAULT_OFFSCREEN_PAGES, mOffscreenPagePolicy.getPagesAfter(mOffscreenPageLimit));
+    }
+
+    /**
+     * Destroys offscreen pages down to the trimmed page floor, as done when the app is asked to
+     * trim memory. Pages are instantiated again once the user pages on or starts scrolling.
+     *
+     * @see #setTrimmedPageFloor(int)
+     */
+    public void trimOffscreenPages() {
+        mTrimmer.trim();
+    }
+
+    /**
+     * Returns the number of pages kept to either side of the current page when trimmed.
+     *
+     * @return How many pages survive a trim on either side
+     * @see #setTrimmedPageFloor(int)
+     */
+    public int getTrimmedPageFloor() {
+        return mTrimmer.getFloor();
+    }
+
+    /**
+     * Set the number of pages kept to either side of the current page when the app is asked to
+     * trim memory, or {@link #trimOffscreenPages()} is called. Pages that are at least partly
+     * visible are always kept. This setting defaults to 0.
+     *
+     * @param floor How many pages survive a trim on either side
+     */
+    public void setTrimmedPageFloor(int floor) {
+        if (floor < 0) {
+            Log.w(TAG, "Requested trimmed page floor " + floor + " too small; defaulting to 0");
+            floor = 0;
+        }
+        if (floor != mTrimmer.getFloor()) {
+            mTrimmer.setFloor(floor);
+            if (mTrimmer.isTrimmed()) {
+                populate();
+            }
+        }
+    }
+
+    /**
+     * Returns how many pages were destroyed because of memory pressure.
+     *
+     * @return Evicted page count
+     */
+    public int getEvictedPageCount() {
+        return mTrimmer.getEvictedCount();
+    }
+
+    /**
+     * Returns how many pages destroyed because of memory pressure were instantiated again.
+     *
+     * @return Rebuilt page count
+     */
+    public int getRebuiltPageCount() {
+        return mTrimmer.getRebuiltCount();
+    }
+
+    /**
+     * Returns the number of pages instantiated ahead of the direction of travel, beyond the
+     * offscreen page limit, while the main thread is idle.
+     *
+     * @return How many pages are prefetched
+     * @see #setPrefetchPageCount(int)
+     */
+    public int getPrefetchPageCount() {
+        return mPrefetchPageCount;
+    }
+
+    /**
+     * Set the number of pages that should be instantiated ahead of the direction of travel,
+     * beyond the offscreen page limit. They are created while the main thread is idle between
+     * frames, so the adapter's work is already done when the user pages on, and kept until the
+     * user reverses. This setting defaults to 0, which disables prefetching.
+     *
+     * @param count How many pages to prefetch in the direction of travel.
+     */
+    public void setPrefetchPageCount(int count) {
+        if (count < 0) {
+            Log.w(TAG, "Requested prefetch page count " + count + " too small; defaulting to 0");
+            count = 0;
+        }
+        if (count != mPrefetchPageCount) {
+            mPrefetchPageCount = count;
+            if (count == 0) {
+                mPrefetcher.cancel();
+            }
+            populate();
+            if (count > 0 && mTravelDirection != 0) {
+                mPrefetcher.schedule();
+            }
+        }
+    }
+
     /**
      * Set the margin between pages.
      *
@@ -738,7 +935,7 @@ public class VerticalViewPager extends ViewGroup {
         if (velocity > 0) {
             duration = 4 * Math.round(1000 * Math.abs(distance / velocity));
         } else {
-            final float pageHeight = height * mAdapter.getPageWidth(mCurItem);
+            final float pageHeight = height * mPageSizes.getPageSize(mCurItem);
             final float pageDelta = (float) Math.abs(dx) / (pageHeight + mPageMargin);
             duration = (int) ((pageDelta + 1) * 100);
         }
@@ -749,10 +946,14 @@ public class VerticalViewPager extends ViewGroup {
     }
 
     ItemInfo addNewItem(int position, int index) {
-        ItemInfo ii = new ItemInfo();
+        ItemInfo ii = mItemInfoPool.acquire();
+        if (ii == null) {
+            ii = new ItemInfo();
+        }
         ii.position = position;
         ii.object = mAdapter.instantiateItem(this, position);
-        ii.heightFactor = mAdapter.getPageWidth(position);
+        mTrimmer.onPageInstantiated(position);
+        ii.heightFactor = mPageSizes.getPageSize(position);
         if (index < 0 || index >= mItems.size()) {
             mItems.add(ii);
         } else {
@@ -761,8 +962,15 @@ public class VerticalViewPager extends ViewGroup {
         return ii;
     }
 
+    private void releaseItemInfo(ItemInfo ii) {
+        ii.recycle();
+        mItemInfoPool.release(ii);
+    }
+
     void dataSetChanged() {
         // This method only gets called if our observer is attached, so mAdapter is non-null.
+        Tracer.beginSection(TRACE_DATA_SET_CHANGED_TAG);
+        mTrimmer.onDataSetChanged();
 
         final int adapterCount = mAdapter.getCount();
         mExpectedAdapterCount = adapterCount;
@@ -796,6 +1004,7 @@ public class VerticalViewPager extends ViewGroup {
                     newCurrItem = Math.max(0, Math.min(mCurItem, adapterCount - 1));
                     needPopulate = true;
                 }
+                releaseItemInfo(ii);
                 continue;
             }
 
@@ -815,6 +1024,7 @@ public class VerticalViewPager extends ViewGroup {
         }
 
         Collections.sort(mItems, COMPARATOR);
+        mGeometry.invalidateScrollTable();
 
         if (needPopulate) {
             // Reset our known page widths; populate will recompute them.
@@ -830,6 +1040,7 @@ public class VerticalViewPager extends ViewGroup {
             setCurrentItemInternal(newCurrItem, false, true);
             requestLayout();
         }
+        Tracer.endSection();
     }
 
     void populate() {
@@ -837,11 +1048,29 @@ public class VerticalViewPager extends ViewGroup {
     }
 
     void populate(int newCurrentItem) {
+        Tracer.beginSection(TRACE_POPULATE_TAG);
+        populateInternal(newCurrentItem);
+        Tracer.endSection();
+    }
+
+    private void populateInternal(int newCurrentItem) {
         ItemInfo oldCurInfo = null;
         int focusDirection = View.FOCUS_FORWARD;
         if (mCurItem != newCurrentItem) {
             focusDirection = mCurItem < newCurrentItem ? View.FOCUS_DOWN : View.FOCUS_UP;
+            mTravelDirection = mCurItem < newCurrentItem ? 1 : -1;
+            mTrimmer.restore();
+            if (mOffscreenPagePolicy != null) {
+                mOffscreenPagePolicy.onPageSelected(newCurrentItem, mTravelDirection,
+                        SystemClock.uptimeMillis());
+            }
             oldCurInfo = infoForPosition(mCurItem);
+            if (oldCurInfo != null) {
+                // The old current page may be destroyed below, keep what the offsets need.
+                mOldCurInfo.set(oldCurInfo);
+                mOldCurInfo.object = null;
+                oldCurInfo = mOldCurInfo;
+            }
             mCurItem = newCurrentItem;
         }
 
@@ -869,10 +1098,18 @@ public class VerticalViewPager extends ViewGroup {
 
         mAdapter.startUpdate(this);
 
-        final int pageLimit = mOffscreenPageLimit;
-        final int startPos = Math.max(0, mCurItem - pageLimit);
+        // When trimmed, only the visible pages and the floor are kept.
+        final boolean trimmed = mTrimmer.isTrimmed();
+        final int startPos = Math.max(0,
+                mCurItem - (trimmed ? mTrimmer.getFloor() : getPagesBefore()));
         final int N = mAdapter.getCount();
-        final int endPos = Math.min(N - 1, mCurItem + pageLimit);
+        final int endPos = Math.min(N - 1,
+                mCurItem + (trimmed ? mTrimmer.getFloor() : getPagesAfter()));
+        // Prefetched pages ahead of the direction of travel are kept, but never created here.
+        final int retainStart = !trimmed && mTravelDirection < 0
+                ? Math.max(0, startPos - mPrefetchPageCount) : startPos;
+        final int retainEnd = !trimmed && mTravelDirection > 0
+                ? Math.min(N - 1, endPos + mPrefetchPageCount) : endPos;
 
         if (N != mExpectedAdapterCount) {
             String resName;
@@ -890,14 +1127,10 @@ public class VerticalViewPager extends ViewGroup {
         }
 
         // Locate the currently focused item or add it if needed.
-        int curIndex = -1;
+        int curIndex = mItems.ceilingIndex(mCurItem);
         ItemInfo curItem = null;
-        for (curIndex = 0; curIndex < mItems.size(); curIndex++) {
-            final ItemInfo ii = mItems.get(curIndex);
-            if (ii.position >= mCurItem) {
-                if (ii.position == mCurItem) curItem = ii;
-                break;
-            }
+        if (curIndex < mItems.size() && mItems.get(curIndex).position == mCurItem) {
+            curItem = mItems.get(curIndex);
         }
 
         if (curItem == null && N > 0) {
@@ -912,20 +1145,23 @@ public class VerticalViewPager extends ViewGroup {
             int itemIndex = curIndex - 1;
             ItemInfo ii = itemIndex >= 0 ? mItems.get(itemIndex) : null;
             final int clientHeight = getClientHeight();
-            final float topHeightNeeded = clientHeight <= 0 ? 0 :
+            final float topHeightNeeded = clientHeight <= 0 || trimmed ? 0 :
                     2.f - curItem.heightFactor + (float) getPaddingLeft() / (float) clientHeight;
             for (int pos = mCurItem - 1; pos >= 0; pos--) {
-                if (extraHeightTop >= topHeightNeeded && pos < startPos) {
+                final boolean retained = pos >= retainStart && ii != null && pos == ii.position;
+                if (extraHeightTop >= topHeightNeeded && pos < startPos && !retained) {
                     if (ii == null) {
                         break;
                     }
                     if (pos == ii.position && !ii.scrolling) {
                         mItems.remove(itemIndex);
                         mAdapter.destroyItem(this, pos, ii.object);
+                        mTrimmer.onPageDestroyed(pos);
                         if (DEBUG) {
                             Log.i(TAG, "populate() - destroyItem() with pos: " + pos +
                                     " view: " + ((View) ii.object));
                         }
+                        releaseItemInfo(ii);
                         itemIndex--;
                         curIndex--;
                         ii = itemIndex >= 0 ? mItems.get(itemIndex) : null;
@@ -947,19 +1183,22 @@ public class VerticalViewPager extends ViewGroup {
             if (extraHeightBottom < 2.f) {
                 ii = itemIndex < mItems.size() ? mItems.get(itemIndex) : null;
                 final float bottomHeightNeeded = clientHeight <= 0 ? 0 :
-                        (float) getPaddingRight() / (float) clientHeight + 2.f;
+                        (float) getPaddingRight() / (float) clientHeight + (trimmed ? 1.f : 2.f);
                 for (int pos = mCurItem + 1; pos < N; pos++) {
-                    if (extraHeightBottom >= bottomHeightNeeded && pos > endPos) {
+                    final boolean retained = pos <= retainEnd && ii != null && pos == ii.position;
+                    if (extraHeightBottom >= bottomHeightNeeded && pos > endPos && !retained) {
                         if (ii == null) {
                             break;
                         }
                         if (pos == ii.position && !ii.scrolling) {
                             mItems.remove(itemIndex);
                             mAdapter.destroyItem(this, pos, ii.object);
+                            mTrimmer.onPageDestroyed(pos);
                             if (DEBUG) {
                                 Log.i(TAG, "populate() - destroyItem() with pos: " + pos +
                                         " view: " + ((View) ii.object));
                             }
+                            releaseItemInfo(ii);
                             ii = itemIndex < mItems.size() ? mItems.get(itemIndex) : null;
                         }
                     } else if (ii != null && pos == ii.position) {
@@ -1022,6 +1261,75 @@ public class VerticalViewPager extends ViewGroup {
                 }
             }
         }
+
+        if (mPrefetchPageCount > 0 && mTravelDirection != 0) {
+            mPrefetcher.schedule();
+        }
+    }
+
+    private int nextPrefetchPosition() {
+        if (mAdapter == null || mPopulatePending || mTravelDirection == 0 || mTrimmer.isTrimmed()
+                || getWindowToken() == null || mAdapter.getCount() != mExpectedAdapterCount
+                || infoForPosition(mCurItem) == null) {
+            return -1;
+        }
+        if (mTravelDirection > 0) {
+            final int next = mItems.get(mItems.size() - 1).position + 1;
+            final int end = Math.min(mAdapter.getCount() - 1,
+                    mCurItem + getPagesAfter() + mPrefetchPageCount);
+            return next <= end ? next : -1;
+        }
+        final int next = mItems.get(0).position - 1;
+        final int start = Math.max(0, mCurItem - getPagesBefore() - mPrefetchPageCount);
+        return next >= start ? next : -1;
+    }
+
+    private void prefetchPage(int position) {
+        // Add the page without requesting a layout; it is measured and placed below so its whole
+        // cost stays inside the prefetcher's idle deadline instead of landing on the next frame.
+        mInLayout = true;
+        mAdapter.startUpdate(this);
+        final ItemInfo ii = addNewItem(position, position < mCurItem ? 0 : mItems.size());
+        mAdapter.finishUpdate(this);
+        mInLayout = false;
+
+        final int curIndex = mItems.ceilingIndex(mCurItem);
+        calculatePageOffsets(mItems.get(curIndex), curIndex, null);
+        layoutPrefetchedPage(ii);
+    }
+
+    /**
+     * Measures and positions the views of a prefetched page with the page bounds of the last
+     * layout pass, and brings the child indices and drawing order up to date.
+     */
+    private void layoutPrefetchedPage(ItemInfo ii) {
+        if (mFirstLayout) {
+            requestLayout();
+            return;
+        }
+        final int childHeight = mBottomPageBounds - mTopPageBounds;
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = getChildAt(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            lp.childIndex = i;
+            if (lp.isDecor || !lp.needsMeasure || !mAdapter.isViewFromObject(child, ii.object)) {
+                continue;
+            }
+            lp.heightFactor = ii.heightFactor;
+            lp.position = ii.position;
+            lp.needsMeasure = false;
+            final int widthSpec = MeasureSpec.makeMeasureSpec(
+                    mRightPageBounds - mLeftPageBounds, MeasureSpec.EXACTLY);
+            final int heightSpec = MeasureSpec.makeMeasureSpec(
+                    (int) (childHeight * lp.heightFactor), MeasureSpec.EXACTLY);
+            child.measure(widthSpec, heightSpec);
+            final int childTop = mTopPageBounds + (int) (childHeight * ii.offset);
+            child.layout(mLeftPageBounds, childTop,
+                    mLeftPageBounds + child.getMeasuredWidth(),
+                    childTop + child.getMeasuredHeight());
+        }
+        sortChildDrawingOrder();
     }
 
     private void sortChildDrawingOrder() {
@@ -1041,87 +1349,10 @@ public class VerticalViewPager extends ViewGroup {
     }
 
     private void calculatePageOffsets(ItemInfo curItem, int curIndex, ItemInfo oldCurInfo) {
-        final int N = mAdapter.getCount();
         final int height = getClientHeight();
         final float marginOffset = height > 0 ? (float) mPageMargin / height : 0;
-        // Fix up offsets for later layout.
-        if (oldCurInfo != null) {
-            final int oldCurPosition = oldCurInfo.position;
-            // Base offsets off of oldCurInfo.
-            if (oldCurPosition < curItem.position) {
-                int itemIndex = 0;
-                ItemInfo ii = null;
-                float offset = oldCurInfo.offset + oldCurInfo.heightFactor + marginOffset;
-                for (int pos = oldCurPosition + 1;
-                     pos <= curItem.position && itemIndex < mItems.size(); pos++) {
-                    ii = mItems.get(itemIndex);
-                    while (pos > ii.position && itemIndex < mItems.size() - 1) {
-                        itemIndex++;
-                        ii = mItems.get(itemIndex);
-                    }
-                    while (pos < ii.position) {
-                        // We don't have an item populated for this,
-                        // ask the adapter for an offset.
-                        offset += mAdapter.getPageWidth(pos) + marginOffset;
-                        pos++;
-                    }
-                    ii.offset = offset;
-                    offset += ii.heightFactor + marginOffset;
-                }
-            } else if (oldCurPosition > curItem.position) {
-                int itemIndex = mItems.size() - 1;
-                ItemInfo ii = null;
-                float offset = oldCurInfo.offset;
-                for (int pos = oldCurPosition - 1;
-                     pos >= curItem.position && itemIndex >= 0; pos--) {
-                    ii = mItems.get(itemIndex);
-                    while (pos < ii.position && itemIndex > 0) {
-                        itemIndex--;
-                        ii = mItems.get(itemIndex);
-                    }
-                    while (pos > ii.position) {
-                        // We don't have an item populated for this,
-                        // ask the adapter for an offset.
-                        offset -= mAdapter.getPageWidth(pos) + marginOffset;
-                        pos--;
-                    }
-                    offset -= ii.heightFactor + marginOffset;
-                    ii.offset = offset;
-                }
-            }
-        }
-
-        // Base all offsets off of curItem.
-        final int itemCount = mItems.size();
-        float offset = curItem.offset;
-        int pos = curItem.position - 1;
-        mFirstOffset = curItem.position == 0 ? curItem.offset : -Float.MAX_VALUE;
-        mLastOffset = curItem.position == N - 1 ?
-                curItem.offset + curItem.heightFactor - 1 : Float.MAX_VALUE;
-        // Previous pages
-        for (int i = curIndex - 1; i >= 0; i--, pos--) {
-            final ItemInfo ii = mItems.get(i);
-            while (pos > ii.position) {
-                offset -= mAdapter.getPageWidth(pos--) + marginOffset;
-            }
-            offset -= ii.heightFactor + marginOffset;
-            ii.offset = offset;
-            if (ii.position == 0) mFirstOffset = offset;
-        }
-        offset = curItem.offset + curItem.heightFactor + marginOffset;
-        pos = curItem.position + 1;
-        // Next pages
-        for (int i = curIndex + 1; i < itemCount; i++, pos++) {
-            final ItemInfo ii = mItems.get(i);
-            while (pos < ii.position) {
-                offset += mAdapter.getPageWidth(pos++) + marginOffset;
-            }
-            if (ii.position == N - 1) {
-                mLastOffset = offset + ii.heightFactor - 1;
-            }
-            ii.offset = offset;
-            offset += ii.heightFactor + marginOffset;
-        }
+        mGeometry.calculatePageOffsets(mItems, curItem, curIndex, oldCurInfo, mAdapter.getCount(),
+                marginOffset);
 
         mNeedCalculatePageOffsets = false;
     }
@@ -1246,6 +1477,14 @@ public class VerticalViewPager extends ViewGroup {
     }
 
     ItemInfo infoForChild(View child) {
+        // Populated children remember their adapter position; check it before scanning.
+        final ViewGroup.LayoutParams params = child.getLayoutParams();
+        if (params instanceof LayoutParams && ((LayoutParams) params).heightFactor != 0.f) {
+            final ItemInfo ii = mItems.getByPosition(((LayoutParams) params).position);
+            if (ii != null && mAdapter.isViewFromObject(child, ii.object)) {
+                return ii;
+            }
+        }
         for (int i = 0; i < mItems.size(); i++) {
             ItemInfo ii = mItems.get(i);
             if (mAdapter.isViewFromObject(child, ii.object)) {
@@ -1267,19 +1506,15 @@ public class VerticalViewPager extends ViewGroup {
     }
 
     ItemInfo infoForPosition(int position) {
-        for (int i = 0; i < mItems.size(); i++) {
-            ItemInfo ii = mItems.get(i);
-            if (ii.position == position) {
-                return ii;
-            }
-        }
-        return null;
+        return mItems.getByPosition(position);
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
         mFirstLayout = true;
+        mPrefetcher.onAttachedToWindow();
+        mTrimmer.register(getContext());
     }
 
     @Override
@@ -1289,6 +1524,7 @@ public class VerticalViewPager extends ViewGroup {
         // our view.  We can't really know what it is since we will be
         // adding and removing different arbitrary views and do not
         // want the layout to change as this happens.
+        Tracer.beginSection(TRACE_ON_MEASURE_TAG);
         setMeasuredDimension(getDefaultSize(0, widthMeasureSpec),
                 getDefaultSize(0, heightMeasureSpec));
 
@@ -1375,6 +1611,7 @@ public class VerticalViewPager extends ViewGroup {
                 }
             }
         }
+        Tracer.endSection();
     }
 
     @Override
@@ -1406,7 +1643,8 @@ public class VerticalViewPager extends ViewGroup {
             }
         } else {
             final ItemInfo ii = infoForPosition(mCurItem);
-            final float scrollOffset = ii != null ? Math.min(ii.offset, mLastOffset) : 0;
+            final float scrollOffset = ii != null
+                    ? Math.min(ii.offset, mGeometry.getLastOffset()) : 0;
             final int scrollPos = (int) (scrollOffset *
                     (height - getPaddingTop() - getPaddingBottom()));
             if (scrollPos != getScrollY()) {
@@ -1418,6 +1656,7 @@ public class VerticalViewPager extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        Tracer.beginSection(TRACE_ON_LAYOUT_TAG);
         final int count = getChildCount();
         int width = r - l;
         int height = b - t;
@@ -1517,16 +1756,20 @@ public class VerticalViewPager extends ViewGroup {
         }
         mLeftPageBounds = paddingLeft;
         mRightPageBounds = width - paddingRight;
+        mTopPageBounds = paddingTop;
+        mBottomPageBounds = height - paddingBottom;
         mDecorChildCount = decorCount;
 
         if (mFirstLayout) {
             scrollToItem(mCurItem, false, 0, false);
         }
         mFirstLayout = false;
+        Tracer.endSection();
     }
 
     @Override
     public void computeScroll() {
+        mPrefetcher.onFrame();
         if (!mScroller.isFinished() && mScroller.computeScrollOffset()) {
             int oldX = getScrollX();
             int oldY = getScrollY();
@@ -1560,13 +1803,12 @@ public class VerticalViewPager extends ViewGroup {
             }
             return false;
         }
-        final ItemInfo ii = infoForCurrentScrollPosition();
+        final int currentPage = pageForCurrentScrollPosition();
         final int height = getClientHeight();
         final int heightWithMargin = height + mPageMargin;
         final float marginOffset = (float) mPageMargin / height;
-        final int currentPage = ii.position;
-        final float pageOffset = (((float) ypos / height) - ii.offset) /
-                (ii.heightFactor + marginOffset);
+        final float pageOffset = (((float) ypos / height) - mGeometry.getPageOffset(currentPage)) /
+                (mGeometry.getPageHeight(currentPage) + marginOffset);
         final int offsetPixels = (int) (pageOffset * heightWithMargin);
 
         mCalledSuper = false;
@@ -1973,9 +2215,10 @@ public class VerticalViewPager extends ViewGroup {
                     mPopulatePending = true;
                     final int height = getClientHeight();
                     final int scrollY = getScrollY();
-                    final ItemInfo ii = infoForCurrentScrollPosition();
-                    final int currentPage = ii.position;
-                    final float pageOffset = (((float) scrollY / height) - ii.offset) / ii.heightFactor;
+                    final int currentPage = pageForCurrentScrollPosition();
+                    final float pageOffset = (((float) scrollY / height)
+                            - mGeometry.getPageOffset(currentPage))
+                            / mGeometry.getPageHeight(currentPage);
                     final int activePointerIndex =
                             MotionEventCompat.findPointerIndex(ev, mActivePointerId);
                     final float y = MotionEventCompat.getY(ev, activePointerIndex);
@@ -2033,8 +2276,8 @@ public class VerticalViewPager extends ViewGroup {
         float scrollY = oldScrollY + deltaY;
         final int height = getClientHeight();
 
-        float topBound = height * mFirstOffset;
-        float bottomBound = height * mLastOffset;
+        float topBound = height * mGeometry.getFirstOffset();
+        float bottomBound = height * mGeometry.getLastOffset();
         boolean topAbsolute = true;
         boolean bottomAbsolute = true;
 
@@ -2071,69 +2314,19 @@ public class VerticalViewPager extends ViewGroup {
     }
 
     /**
-     * @return Info about the page at the current scroll position.
-     * This can be synthetic for a missing middle page; the 'object' field can be null.
+     * @return Position of the page at the current scroll position. The page may not be
+     * populated; read its offset and size from {@link #mGeometry}.
      */
-    private ItemInfo infoForCurrentScrollPosition() {
+    private int pageForCurrentScrollPosition() {
         final int height = getClientHeight();
         final float scrollOffset = height > 0 ? (float) getScrollY() / height : 0;
         final float marginOffset = height > 0 ? (float) mPageMargin / height : 0;
-        int lastPos = -1;
-        float lastOffset = 0.f;
-        float lastHeight = 0.f;
-        boolean first = true;
-
-        ItemInfo lastItem = null;
-        for (int i = 0; i < mItems.size(); i++) {
-            ItemInfo ii = mItems.get(i);
-            float offset;
-            if (!first && ii.position != lastPos + 1) {
-                // Create a synthetic item for a missing page.
-                ii = mTempItem;
-                ii.offset = lastOffset + lastHeight + marginOffset;
-                ii.position = lastPos + 1;
-                ii.heightFactor = mAdapter.getPageWidth(ii.position);
-                i--;
-            }
-            offset = ii.offset;
-
-            final float topBound = offset;
-            final float bottomBound = offset + ii.heightFactor + marginOffset;
-            if (first || scrollOffset >= topBound) {
-                if (scrollOffset < bottomBound || i == mItems.size() - 1) {
-                    return ii;
-                }
-            } else {
-                return lastItem;
-            }
-            first = false;
-            lastPos = ii.position;
-            lastOffset = offset;
-            lastHeight = ii.heightFactor;
-            lastItem = ii;
-        }
-
-        return lastItem;
+        return mGeometry.pageForScrollOffset(mItems, scrollOffset, marginOffset);
     }
 
     private int determineTargetPage(int currentPage, float pageOffset, int velocity, int deltaY) {
-        int targetPage;
-        if (Math.abs(deltaY) > mFlingDistance && Math.abs(velocity) > mMinimumVelocity) {
-            targetPage = velocity > 0 ? currentPage : currentPage + 1;
-        } else {
-            final float truncator = currentPage >= mCurItem ? 0.4f : 0.6f;
-            targetPage = (int) (currentPage + pageOffset + truncator);
-        }
-
-        if (mItems.size() > 0) {
-            final ItemInfo firstItem = mItems.get(0);
-            final ItemInfo lastItem = mItems.get(mItems.size() - 1);
-
-            // Only let the user target pages we have items for
-            targetPage = Math.max(firstItem.position, Math.min(targetPage, lastItem.position));
-        }
-
-        return targetPage;
+        return PageGeometry.determineTargetPage(mItems, currentPage, mCurItem, pageOffset,
+                velocity, deltaY, mFlingDistance, mMinimumVelocity);
     }
 
     @Override
@@ -2150,7 +2343,7 @@ public class VerticalViewPager extends ViewGroup {
                 final int height = getHeight();
                 final int width = getWidth() - getPaddingLeft() - getPaddingRight();
 
-                canvas.translate(getPaddingLeft(), mFirstOffset * height);
+                canvas.translate(getPaddingLeft(), mGeometry.getFirstOffset() * height);
                 mTopEdge.setSize(width, height);
                 needsInvalidate |= mTopEdge.draw(canvas);
                 canvas.restoreToCount(restoreCount);
@@ -2161,7 +2354,8 @@ public class VerticalViewPager extends ViewGroup {
                 final int width = getWidth() - getPaddingLeft() - getPaddingRight();
 
                 canvas.rotate(180);
-                canvas.translate(-width - getPaddingLeft(), -(mLastOffset + 1) * height);
+                canvas.translate(-width - getPaddingLeft(),
+                        -(mGeometry.getLastOffset() + 1) * height);
                 mBottomEdge.setSize(width, height);
                 needsInvalidate |= mBottomEdge.draw(canvas);
                 canvas.restoreToCount(restoreCount);
@@ -2203,7 +2397,7 @@ public class VerticalViewPager extends ViewGroup {
                     drawAt = (ii.offset + ii.heightFactor) * height;
                     offset = ii.offset + ii.heightFactor + marginOffset;
                 } else {
-                    float heightFactor = mAdapter.getPageWidth(pos);
+                    float heightFactor = mPageSizes.getPageSize(pos);
                     drawAt = (offset + heightFactor) * height;
                     offset += heightFactor + marginOffset;
                 }
@@ -2275,9 +2469,9 @@ public class VerticalViewPager extends ViewGroup {
         mPopulatePending = true;
         final int height = getClientHeight();
         final int scrollY = getScrollY();
-        final ItemInfo ii = infoForCurrentScrollPosition();
-        final int currentPage = ii.position;
-        final float pageOffset = (((float) scrollY / height) - ii.offset) / ii.heightFactor;
+        final int currentPage = pageForCurrentScrollPosition();
+        final float pageOffset = (((float) scrollY / height) - mGeometry.getPageOffset(currentPage))
+                / mGeometry.getPageHeight(currentPage);
         final int totalDelta = (int) (mLastMotionY - mInitialMotionY);
         int nextPage = determineTargetPage(currentPage, pageOffset, initialVelocity,
                 totalDelta);
@@ -2305,8 +2499,8 @@ public class VerticalViewPager extends ViewGroup {
         float scrollY = oldScrollY - yOffset;
         final int height = getClientHeight();
 
-        float topBound = height * mFirstOffset;
-        float bottomBound = height * mLastOffset;
+        float topBound = height * mGeometry.getFirstOffset();
+        float bottomBound = height * mGeometry.getLastOffset();
 
         final ItemInfo firstItem = mItems.get(0);
         final ItemInfo lastItem = mItems.get(mItems.size() - 1);
@@ -2395,9 +2589,9 @@ public class VerticalViewPager extends ViewGroup {
         final int height = getClientHeight();
         final int scrollY = getScrollY();
         if (direction < 0) {
-            return (scrollY > (int) (height * mFirstOffset));
+            return (scrollY > (int) (height * mGeometry.getFirstOffset()));
         } else if (direction > 0) {
-            return (scrollY < (int) (height * mLastOffset));
+            return (scrollY < (int) (height * mGeometry.getLastOffset()));
         } else {
             return false;
         }
@@ -2785,11 +2979,13 @@ public class VerticalViewPager extends ViewGroup {
     private class PagerObserver extends DataSetObserver {
         @Override
         public void onChanged() {
+            mPageSizes.invalidate();
             dataSetChanged();
         }
 
         @Override
         public void onInvalidated() {
+            mPageSizes.invalidate();
             dataSetChanged();
         }
     }
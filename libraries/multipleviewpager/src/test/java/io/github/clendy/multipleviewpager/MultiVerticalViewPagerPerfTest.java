@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.multipleviewpager;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.v4.view.PagerAdapter;
+import android.view.KeyEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import io.github.clendy.perftest.DpadPerfDriver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static io.github.clendy.perftest.DpadPerfDriver.assertBudget;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives D-pad paging through a {@link MultiVerticalViewPager} and fails when a key event costs
+ * more measure/layout passes, {@code populate()} calls or page instantiations than budgeted.
+ *
+ * @author Clendy
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MultiVerticalViewPagerPerfTest {
+
+    private static final int PAGE_COUNT = 100;
+    private static final int WARM_UP_KEYS = 5;
+    private static final int MEASURED_KEYS = 20;
+    private static final long SETTLE_MILLIS = 1500;
+
+    private static final float MAX_MEASURES_PER_KEY = 2f;
+    private static final float MAX_LAYOUTS_PER_KEY = 2f;
+    private static final float MAX_POPULATES_PER_KEY = 4f;
+    private static final float MAX_PAGES_INSTANTIATED_PER_KEY = 1f;
+
+    private CountingPager mPager;
+    private CountingPagerAdapter mAdapter;
+    private DpadPerfDriver mDriver;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+
+        mAdapter = new CountingPagerAdapter();
+        mPager = new CountingPager(activity);
+        mPager.setAdapter(mAdapter);
+
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(mPager, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        activity.setContentView(root);
+
+        mDriver = new DpadPerfDriver(mPager, SETTLE_MILLIS) {
+            @Override
+            protected void onKeyNotConsumed(int direction) {
+                // vertical keys the pager does not consume page like the view root's focus search
+                mPager.arrowScroll(direction);
+            }
+        };
+        mDriver.settle();
+    }
+
+    @Test
+    public void dpadDown_staysWithinLayoutAndPopulateBudget() {
+        mDriver.pressKeys(KeyEvent.KEYCODE_DPAD_DOWN, View.FOCUS_DOWN, WARM_UP_KEYS);
+        mPager.resetCounters();
+        mAdapter.mInstantiated = 0;
+
+        mDriver.pressKeys(KeyEvent.KEYCODE_DPAD_DOWN, View.FOCUS_DOWN, MEASURED_KEYS);
+
+        assertEquals(WARM_UP_KEYS + MEASURED_KEYS, mPager.getCurrentItem());
+        assertBudget("measures", mPager.mMeasures, MEASURED_KEYS, MAX_MEASURES_PER_KEY);
+        assertBudget("layouts", mPager.mLayouts, MEASURED_KEYS, MAX_LAYOUTS_PER_KEY);
+        assertBudget("populates", mPager.mPopulates, MEASURED_KEYS, MAX_POPULATES_PER_KEY);
+        assertBudget("pages instantiated", mAdapter.mInstantiated, MEASURED_KEYS,
+                MAX_PAGES_INSTANTIATED_PER_KEY);
+    }
+
+    private static class CountingPager extends MultiVerticalViewPager {
+
+        int mMeasures;
+        int mLayouts;
+        int mPopulates;
+
+        CountingPager(Context context) {
+            super(context);
+        }
+
+        void resetCounters() {
+            mMeasures = 0;
+            mLayouts = 0;
+            mPopulates = 0;
+        }
+
+        @Override
+        void populate(int newCurrentItem) {
+            mPopulates++;
+            super.populate(newCurrentItem);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mLayouts++;
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+
+    private static class CountingPagerAdapter extends PagerAdapter {
+
+        int mInstantiated;
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            mInstantiated++;
+            View page = new View(container.getContext());
+            container.addView(page);
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View) object);
+        }
+
+        @Override
+        public int getCount() {
+            return PAGE_COUNT;
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+    }
+}
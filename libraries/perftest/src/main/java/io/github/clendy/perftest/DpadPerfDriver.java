@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.perftest;
+
+import android.view.KeyEvent;
+import android.view.View;
+
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Presses D-pad keys on a view under Robolectric and checks per-key budgets, for the perf tests
+ * of the library modules.
+ *
+ * @author Clendy
+ */
+public abstract class DpadPerfDriver {
+
+    private final View mTarget;
+    private final long mSettleMillis;
+
+    protected DpadPerfDriver(View target, long settleMillis) {
+        mTarget = target;
+        mSettleMillis = settleMillis;
+    }
+
+    /**
+     * Called when the target did not consume a key press, so the test can move on the way the
+     * view root would.
+     *
+     * @param direction focus direction of the unconsumed key
+     */
+    protected abstract void onKeyNotConsumed(int direction);
+
+    public void pressKeys(int keyCode, int direction, int count) {
+        for (int i = 0; i < count; i++) {
+            pressKey(keyCode, direction);
+        }
+    }
+
+    public void pressKey(int keyCode, int direction) {
+        if (!mTarget.dispatchKeyEvent(new KeyEvent(KeyEvent.ACTION_DOWN, keyCode))) {
+            onKeyNotConsumed(direction);
+        }
+        mTarget.dispatchKeyEvent(new KeyEvent(KeyEvent.ACTION_UP, keyCode));
+        settle();
+    }
+
+    public void settle() {
+        ShadowLooper.idleMainLooper(mSettleMillis);
+    }
+
+    public static void assertBudget(String what, int count, int keys, float perKeyBudget) {
+        float perKey = (float) count / keys;
+        assertTrue(what + " per key " + perKey + " exceeds budget " + perKeyBudget,
+                perKey <= perKeyBudget);
+    }
+}
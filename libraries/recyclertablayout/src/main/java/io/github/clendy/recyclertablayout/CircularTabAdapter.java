@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import java.util.List;
+
+import static android.support.v7.widget.RecyclerView.NO_ID;
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+
+/**
+ * Adapter used by {@link RecyclerTabLayout} in circular mode. It repeats the wrapped adapter
+ * over a virtual position range, mapping virtual positions to real ones modulo the real item
+ * count. Only the laid-out window is ever bound, so memory stays bounded.
+ * <p>
+ * Range changes of the wrapped adapter are forwarded to the copies around the laid-out window,
+ * structural changes as a full data set change.
+ *
+ * @author Clendy
+ */
+@SuppressWarnings("unchecked")
+final class CircularTabAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    static final int VIRTUAL_COUNT = Integer.MAX_VALUE;
+
+    private final RecyclerView.Adapter mAdapter;
+    private RecyclerView mRecyclerView;
+
+    private final RecyclerView.AdapterDataObserver mObserver =
+            new RecyclerView.AdapterDataObserver() {
+                @Override
+                public void onChanged() {
+                    notifyDataSetChanged();
+                }
+
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    forwardRangeChanged(positionStart, itemCount, null);
+                }
+
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount,
+                                               Object payload) {
+                    forwardRangeChanged(positionStart, itemCount, payload);
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    notifyDataSetChanged();
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    notifyDataSetChanged();
+                }
+
+                @Override
+                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                    notifyDataSetChanged();
+                }
+            };
+
+    CircularTabAdapter(RecyclerView.Adapter adapter) {
+        mAdapter = adapter;
+        setHasStableIds(adapter.hasStableIds());
+    }
+
+    RecyclerView.Adapter getWrappedAdapter() {
+        return mAdapter;
+    }
+
+    int getRealCount() {
+        return mAdapter.getItemCount();
+    }
+
+    /**
+     * Maps a virtual position to the wrapped adapter's position.
+     *
+     * @param position virtual position
+     * @return real position, or NO_POSITION
+     */
+    int getRealPosition(int position) {
+        int count = getRealCount();
+        if (position == NO_POSITION || count == 0) {
+            return NO_POSITION;
+        }
+        return position % count;
+    }
+
+    /**
+     * Gets the virtual position of a real one, closest to the passed reference position.
+     *
+     * @param realPosition real position
+     * @param reference    virtual position to stay close to, NO_POSITION for the middle
+     * @return virtual position
+     */
+    int getVirtualPosition(int realPosition, int reference) {
+        int count = getRealCount();
+        if (count == 0 || realPosition == NO_POSITION) {
+            return NO_POSITION;
+        }
+        if (reference == NO_POSITION) {
+            int half = VIRTUAL_COUNT / 2;
+            return half - half % count + realPosition;
+        }
+        int candidate = reference - reference % count + realPosition;
+        int diff = candidate - reference;
+        if (diff > count / 2 && candidate - count >= 0) {
+            candidate -= count;
+        } else if (diff < -count / 2 && candidate <= VIRTUAL_COUNT - 1 - count) {
+            candidate += count;
+        }
+        return candidate;
+    }
+
+    private void forwardRangeChanged(int positionStart, int itemCount, Object payload) {
+        int count = getRealCount();
+        RecyclerView.LayoutManager lm = mRecyclerView != null
+                ? mRecyclerView.getLayoutManager() : null;
+        if (count == 0 || !(lm instanceof LinearLayoutManager)) {
+            notifyDataSetChanged();
+            return;
+        }
+        LinearLayoutManager llm = (LinearLayoutManager) lm;
+        int first = llm.findFirstVisibleItemPosition();
+        int last = llm.findLastVisibleItemPosition();
+        if (first == NO_POSITION || last == NO_POSITION) {
+            notifyDataSetChanged();
+            return;
+        }
+
+        // one extra cycle on each side covers views cached outside the viewport
+        long from = Math.max(0L, (long) first - count);
+        long to = Math.min((long) VIRTUAL_COUNT - 1, (long) last + count);
+        for (long base = from - from % count; base <= to; base += count) {
+            long start = base + positionStart;
+            if (start + itemCount <= from || start > to) {
+                continue;
+            }
+            if (payload == null) {
+                notifyItemRangeChanged((int) start, itemCount);
+            } else {
+                notifyItemRangeChanged((int) start, itemCount, payload);
+            }
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return getRealCount() == 0 ? 0 : VIRTUAL_COUNT;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mAdapter.getItemViewType(getRealPosition(position));
+    }
+
+    /**
+     * Copies of one item in different cycles get different ids, as stable ids must be unique.
+     * The cycle is packed into the high 32 bits, so the wrapped adapter's stable ids must fit
+     * into an int.
+     */
+    @Override
+    public long getItemId(int position) {
+        long id = mAdapter.getItemId(getRealPosition(position));
+        if (id == NO_ID) {
+            return NO_ID;
+        }
+        if (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Circular mode requires stable ids within int range,"
+                    + " found: " + id);
+        }
+        long cycle = position / getRealCount();
+        return cycle << 32 | (id & 0xffffffffL);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return mAdapter.onCreateViewHolder(parent, viewType);
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        mAdapter.onBindViewHolder(holder, getRealPosition(position));
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position,
+                                 List<Object> payloads) {
+        mAdapter.onBindViewHolder(holder, getRealPosition(position), payloads);
+    }
+
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        mAdapter.onViewRecycled(holder);
+    }
+
+    @Override
+    public boolean onFailedToRecycleView(RecyclerView.ViewHolder holder) {
+        return mAdapter.onFailedToRecycleView(holder);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
+        mAdapter.onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
+        mAdapter.onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        mAdapter.registerAdapterDataObserver(mObserver);
+        mAdapter.onAttachedToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        mAdapter.onDetachedFromRecyclerView(recyclerView);
+        mAdapter.unregisterAdapterDataObserver(mObserver);
+        mRecyclerView = null;
+    }
+}
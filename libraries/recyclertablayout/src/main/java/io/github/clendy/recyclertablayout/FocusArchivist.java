@@ -5,18 +5,114 @@ import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static android.support.v7.widget.RecyclerView.NO_ID;
 import static android.support.v7.widget.RecyclerView.NO_POSITION;
 
 /**
  * Helper class that manages focus archiving for some RecyclerView.
+ * <p>
+ * Remembered focus is kept per context (for example per ViewPager page or per adapter), in a
+ * bounded LRU. Positions of all entries are kept up to date from adapter notifications, so
+ * restoring focus in any context does not need to scan children by item id.
  *
  * @author Clendy
  */
 class FocusArchivist {
 
-    private int mLastSelectedPos = NO_POSITION;
-    private long mLastSelectedId = NO_ID;
+    static final int DEFAULT_CAPACITY = 8;
+
+    private static final Object DEFAULT_CONTEXT = new Object();
+
+    private static final class Entry {
+        int mPos = NO_POSITION;
+        long mId = NO_ID;
+        /**
+         * Set when the whole data set changed and {@link #mPos} has to be resolved by id again.
+         */
+        boolean mStale = false;
+
+        void onItemRangeInserted(int positionStart, int itemCount) {
+            if (mPos != NO_POSITION && mPos >= positionStart) {
+                mPos += itemCount;
+            }
+        }
+
+        void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (mPos == NO_POSITION) {
+                return;
+            }
+            if (mPos >= positionStart + itemCount) {
+                mPos -= itemCount;
+            } else if (mPos >= positionStart) {
+                // remembered item is gone, stick to its nearest neighbour
+                mPos = positionStart;
+                mId = NO_ID;
+            }
+        }
+
+        void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (mPos == NO_POSITION) {
+                return;
+            }
+            if (mPos >= fromPosition && mPos < fromPosition + itemCount) {
+                mPos = mPos - fromPosition + toPosition;
+            } else if (fromPosition < toPosition) {
+                if (mPos >= fromPosition + itemCount && mPos < toPosition + itemCount) {
+                    mPos -= itemCount;
+                }
+            } else if (mPos >= toPosition && mPos < fromPosition) {
+                mPos += itemCount;
+            }
+        }
+    }
+
+    private final Map<Object, Entry> mEntries;
+    private Object mContext = DEFAULT_CONTEXT;
+    private Entry mCurrent;
+
+    FocusArchivist() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    FocusArchivist(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        mEntries = new LinkedHashMap<Object, Entry>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Switch to another focus context. Focus archived afterwards is remembered for that context
+     * only, and focus remembered for it earlier becomes the last focus again.
+     *
+     * @param context context key, null for the default context.
+     */
+    void setContext(@Nullable Object context) {
+        if (context == null) {
+            context = DEFAULT_CONTEXT;
+        }
+        if (context.equals(mContext)) {
+            return;
+        }
+        mContext = context;
+        mCurrent = mEntries.get(context);
+    }
+
+    /**
+     * Forget focus remembered for all contexts.
+     */
+    void clear() {
+        mEntries.clear();
+        mCurrent = null;
+    }
 
     /**
      * Remember currently focused entity of the passed RecyclerView. If RecyclerView doesn't contain
@@ -38,8 +134,13 @@ class FocusArchivist {
      * @param child child of that recycler view.
      */
     void archiveFocus(@NonNull RecyclerView rv, View child) {
-        mLastSelectedPos = rv.getChildAdapterPosition(child);
-        mLastSelectedId = rv.getChildItemId(child);
+        if (mCurrent == null) {
+            mCurrent = new Entry();
+            mEntries.put(mContext, mCurrent);
+        }
+        mCurrent.mPos = rv.getChildAdapterPosition(child);
+        mCurrent.mId = rv.getChildItemId(child);
+        mCurrent.mStale = false;
     }
 
     /**
@@ -50,28 +151,73 @@ class FocusArchivist {
      */
     @Nullable
     View getLastFocus(@NonNull RecyclerView rv) {
-        View lastFocused = findLastFocusedViewById(rv, mLastSelectedId);
+        Entry entry = mCurrent;
+        if (entry == null) {
+            return null;
+        }
 
-        if (lastFocused != null) {
-            return lastFocused;
+        if (entry.mStale) {
+            entry.mStale = false;
+            View lastFocused = findLastFocusedViewById(rv, entry.mId);
+            if (lastFocused != null) {
+                entry.mPos = rv.getChildAdapterPosition(lastFocused);
+                return lastFocused;
+            }
         }
 
-        return findLastFocusedViewByPos(rv, mLastSelectedPos);
+        View lastFocused = findLastFocusedViewByPos(rv, entry.mPos);
+        if (lastFocused != null && hasStableIds(rv) && entry.mId != NO_ID
+                && rv.getChildItemId(lastFocused) != entry.mId) {
+            return findLastFocusedViewById(rv, entry.mId);
+        }
+
+        return lastFocused;
     }
 
     /**
-     * Find focusable view by item id.
+     * Whole data set has changed, remembered positions have to be resolved by id.
+     */
+    void onChanged() {
+        for (Entry entry : mEntries.values()) {
+            entry.mStale = true;
+        }
+    }
+
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        for (Entry entry : mEntries.values()) {
+            entry.onItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        for (Entry entry : mEntries.values()) {
+            entry.onItemRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        for (Entry entry : mEntries.values()) {
+            entry.onItemRangeMoved(fromPosition, toPosition, itemCount);
+        }
+    }
+
+    private boolean hasStableIds(@NonNull RecyclerView rv) {
+        RecyclerView.Adapter adapter = rv.getAdapter();
+        return adapter != null && adapter.hasStableIds();
+    }
+
+    /**
+     * Find focusable view by item id. Scans attached children, so it is only used when the
+     * remembered position cannot be trusted.
      *
      * @param rv Recycler view.
      * @param id Item's id.
      * @return View with such id, if selection can be restored on it. Null otherwise.
      */
     private View findLastFocusedViewById(@NonNull RecyclerView rv, long id) {
-        RecyclerView.Adapter adapter = rv.getAdapter();
-        if (adapter != null && adapter.hasStableIds() && mLastSelectedId != NO_ID) {
+        if (hasStableIds(rv) && id != NO_ID) {
             RecyclerView.ViewHolder viewHolder = rv.findViewHolderForItemId(id);
             if (viewHolder != null) {
-                viewHolder.itemView.requestFocus();
                 return viewHolder.itemView;
             }
         }
@@ -88,9 +234,9 @@ class FocusArchivist {
      */
     private View findLastFocusedViewByPos(@NonNull RecyclerView rv, int pos) {
         if (pos != NO_POSITION) {
-            RecyclerView.ViewHolder viewHolder = rv.findViewHolderForAdapterPosition(pos);
-            if (viewHolder != null) {
-                return viewHolder.itemView;
+            RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
+            if (layoutManager != null) {
+                return layoutManager.findViewByPosition(pos);
             }
         }
 
@@ -26,6 +26,9 @@ import android.util.Property;
 import android.view.View;
 
 /**
+ * LinearLayoutManager for {@link RecyclerTabLayout}. It tracks the direction focus travels in and
+ * lays out a few extra tabs ahead of it, so they are bound and measured before focus arrives.
+ *
  * @author Clendy
  */
 class NLayoutManager extends LinearLayoutManager {
@@ -36,6 +39,22 @@ class NLayoutManager extends LinearLayoutManager {
     private Drawable[] mSelectorDrawables = new Drawable[2];
     private int mShowTime = 0;
 
+    /**
+     * Minimum extra space, in pixels, laid out beyond the viewport.
+     */
+    private int mExtraLayoutSpace = 0;
+    /**
+     * Number of tabs laid out ahead of focus in its travel direction.
+     */
+    private int mPrefetchItemCount = 0;
+    private int mLastFocusedPos = RecyclerView.NO_POSITION;
+    private int mLastFocusedSize = 0;
+    private int mTravelDirection = 0;
+
+    private TabMeasureCache mMeasureCache;
+    private RecyclerView mRecyclerView;
+    private final Rect mDecorInsets = new Rect();
+
     public NLayoutManager(Context context, Drawable[] selectorDrawables) {
         super(context);
         if (selectorDrawables != null && selectorDrawables.length >= 2) {
@@ -44,6 +63,122 @@ class NLayoutManager extends LinearLayoutManager {
         }
     }
 
+    public void setExtraLayoutSpace(int extraLayoutSpace) {
+        mExtraLayoutSpace = Math.max(0, extraLayoutSpace);
+    }
+
+    public int getExtraLayoutSpace() {
+        return mExtraLayoutSpace;
+    }
+
+    public void setPrefetchItemCount(int prefetchItemCount) {
+        mPrefetchItemCount = Math.max(0, prefetchItemCount);
+    }
+
+    public int getPrefetchItemCount() {
+        return mPrefetchItemCount;
+    }
+
+    /**
+     * Gets the direction focus moved in last.
+     *
+     * @return 1 towards higher adapter positions, -1 towards lower ones, 0 if unknown
+     */
+    public int getTravelDirection() {
+        return mTravelDirection;
+    }
+
+    public void setMeasureCache(TabMeasureCache measureCache) {
+        mMeasureCache = measureCache;
+    }
+
+    public TabMeasureCache getMeasureCache() {
+        return mMeasureCache;
+    }
+
+    @Override
+    public void onAttachedToWindow(RecyclerView view) {
+        super.onAttachedToWindow(view);
+        mRecyclerView = view;
+    }
+
+    @Override
+    public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+        super.onDetachedFromWindow(view, recycler);
+        mRecyclerView = null;
+    }
+
+    /**
+     * Tabs with a cached size that already have it and did not request a layout are not
+     * measured again. Other tabs with a cached size are measured with exact specs, which skips
+     * resolving wrap_content but still lays out their content.
+     */
+    @Override
+    public void measureChildWithMargins(View child, int widthUsed, int heightUsed) {
+        // the cached size holds for the whole parent space only
+        Object key = widthUsed == 0 && heightUsed == 0 ? getMeasureKey(child) : null;
+        if (key == null) {
+            super.measureChildWithMargins(child, widthUsed, heightUsed);
+            return;
+        }
+
+        long size = mMeasureCache.get(key);
+        if (size == -1) {
+            super.measureChildWithMargins(child, widthUsed, heightUsed);
+            mMeasureCache.put(key, child.getMeasuredWidth(), child.getMeasuredHeight());
+            return;
+        }
+
+        // keeps decoration insets up to date, as super.measureChildWithMargins() does
+        calculateItemDecorationsForChild(child, mDecorInsets);
+        int width = TabMeasureCache.width(size);
+        int height = TabMeasureCache.height(size);
+        if (!child.isLayoutRequested() && child.getMeasuredWidth() == width
+                && child.getMeasuredHeight() == height) {
+            return;
+        }
+        child.measure(
+                View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+    }
+
+    private Object getMeasureKey(View child) {
+        if (mMeasureCache == null || mRecyclerView == null) {
+            return null;
+        }
+        RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(child);
+        if (holder instanceof TabMeasureCache.MeasureKeyProvider) {
+            return ((TabMeasureCache.MeasureKeyProvider) holder).getMeasureKey();
+        }
+        return null;
+    }
+
+    /**
+     * LinearLayoutManager applies this space on the side it is scrolling towards, which is the
+     * side focus travels to.
+     */
+    @Override
+    protected int getExtraLayoutSpace(RecyclerView.State state) {
+        int extra = Math.max(super.getExtraLayoutSpace(state), mExtraLayoutSpace);
+        if (mPrefetchItemCount > 0 && mTravelDirection != 0) {
+            extra = Math.max(extra, mPrefetchItemCount * mLastFocusedSize);
+        }
+        return extra;
+    }
+
+    @Override
+    public boolean onRequestChildFocus(RecyclerView parent, RecyclerView.State state,
+                                       View child, View focused) {
+        int pos = getPosition(child);
+        if (mLastFocusedPos != RecyclerView.NO_POSITION && pos != mLastFocusedPos) {
+            mTravelDirection = pos > mLastFocusedPos ? 1 : -1;
+        }
+        mLastFocusedPos = pos;
+        mLastFocusedSize = getOrientation() == HORIZONTAL
+                ? getDecoratedMeasuredWidth(child) : getDecoratedMeasuredHeight(child);
+        return super.onRequestChildFocus(parent, state, child, focused);
+    }
+
     @Override
     public void onMeasure(RecyclerView.Recycler recycler, RecyclerView.State state,
                           int widthSpec, int heightSpec) {
@@ -52,6 +187,9 @@ class NLayoutManager extends LinearLayoutManager {
 
     @Override
     public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (mMeasureCache != null && mRecyclerView != null) {
+            mMeasureCache.ensureConfiguration(mRecyclerView.getResources().getConfiguration());
+        }
         super.onLayoutChildren(recycler, state);
         if (getItemCount() > 0) {
             View view = findViewByPosition(0);
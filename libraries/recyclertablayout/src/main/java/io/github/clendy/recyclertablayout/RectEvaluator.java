@@ -13,10 +13,10 @@ class RectEvaluator implements TypeEvaluator<Rect> {
 
     @Override
     public Rect evaluate(float fraction, @NonNull Rect startValue, @NonNull Rect endValue) {
-        int left = startValue.left + (int) ((endValue.left - startValue.left) * fraction);
-        int top = startValue.top + (int) ((endValue.top - startValue.top) * fraction);
-        int right = startValue.right + (int) ((endValue.right - startValue.right) * fraction);
-        int bottom = startValue.bottom + (int) ((endValue.bottom - startValue.bottom) * fraction);
+        int left = SelectorGeometry.interpolate(startValue.left, endValue.left, fraction);
+        int top = SelectorGeometry.interpolate(startValue.top, endValue.top, fraction);
+        int right = SelectorGeometry.interpolate(startValue.right, endValue.right, fraction);
+        int bottom = SelectorGeometry.interpolate(startValue.bottom, endValue.bottom, fraction);
 
         mCacheRect.set(left, top, right, bottom);
         return mCacheRect;
@@ -17,17 +17,38 @@
 package io.github.clendy.recyclertablayout;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.support.annotation.ColorRes;
 import android.support.annotation.IdRes;
+import android.support.v4.content.ContextCompat;
 import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.widget.TextView;
 
+import java.util.List;
+
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+
 /**
  * @author Clendy 2016/12/22 022 10:21
  */
 public class RecyclerTabHelper {
 
+    /**
+     * Payload passed to {@link RecyclerView.Adapter#notifyItemChanged(int, Object)} when only the
+     * tab highlight has to be rebound.
+     */
+    public static final Object PAYLOAD_TAB_SELECTION = new Object();
+
+    // cached in place of the title view when the item view has none
+    private static final Object NO_TITLE = new Object();
+
+    private int mTitleId = View.NO_ID;
+    private ColorStateList mSelectColor;
+    private ColorStateList mDefaultColor;
+    private int mSelectedPosition = NO_POSITION;
+
     private RecyclerTabHelper() {
 
     }
@@ -36,6 +57,125 @@ public class RecyclerTabHelper {
         return new RecyclerTabHelper();
     }
 
+    /**
+     * Resolves tab title colors once, for use by {@link #setSelectedPosition} and
+     * {@link #bindTabTitle}.
+     *
+     * @param context      context to resolve colors with
+     * @param idRes        id of the title TextView in the tab layout
+     * @param selectColor  color of the selected tab title
+     * @param defaultColor color of the other tab titles
+     * @return this helper
+     */
+    public RecyclerTabHelper setTabTitleColors(Context context, @IdRes int idRes,
+                                               @ColorRes int selectColor,
+                                               @ColorRes int defaultColor) {
+        mTitleId = idRes;
+        mSelectColor = ContextCompat.getColorStateList(context, selectColor);
+        mDefaultColor = ContextCompat.getColorStateList(context, defaultColor);
+        return this;
+    }
+
+    public int getSelectedPosition() {
+        return mSelectedPosition;
+    }
+
+    /**
+     * Moves the highlight to another tab. Only the previously and newly selected items are
+     * rebound, with {@link #PAYLOAD_TAB_SELECTION}, so the cost does not depend on tab count.
+     *
+     * @param adapter adapter of the tab layout
+     * @param pos     adapter position of the selected tab
+     */
+    public void setSelectedPosition(RecyclerView.Adapter adapter, int pos) {
+        int oldPos = mSelectedPosition;
+        mSelectedPosition = pos;
+        if (adapter == null || oldPos == pos) {
+            return;
+        }
+        if (oldPos != NO_POSITION && oldPos < adapter.getItemCount()) {
+            adapter.notifyItemChanged(oldPos, PAYLOAD_TAB_SELECTION);
+        }
+        if (pos != NO_POSITION && pos < adapter.getItemCount()) {
+            adapter.notifyItemChanged(pos, PAYLOAD_TAB_SELECTION);
+        }
+    }
+
+    /**
+     * Checks whether a partial rebind only has to update the tab highlight. Call it from
+     * {@code onBindViewHolder(holder, position, payloads)}, and skip the full bind if it
+     * returns true after {@link #bindTabTitle}.
+     *
+     * @param payloads payloads passed to the adapter
+     * @return true if highlight is the only change
+     */
+    public boolean isTabSelectionPayload(List<Object> payloads) {
+        if (payloads == null || payloads.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < payloads.size(); i++) {
+            if (payloads.get(i) != PAYLOAD_TAB_SELECTION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies pre-resolved title color to a bound tab. The title view is looked up once and
+     * cached in the item view's tags, also when the item view has none.
+     *
+     * @param holder   tab view holder
+     * @param position adapter position of the holder
+     */
+    public void bindTabTitle(RecyclerView.ViewHolder holder, int position) {
+        if (holder == null || mTitleId == View.NO_ID) {
+            return;
+        }
+        View itemView = holder.itemView;
+        Object title = itemView.getTag(R.id.recycler_tab_title);
+        if (title == null || (title instanceof View && ((View) title).getId() != mTitleId)) {
+            title = itemView.findViewById(mTitleId);
+            itemView.setTag(R.id.recycler_tab_title, title != null ? title : NO_TITLE);
+        }
+        if (title instanceof TextView) {
+            bindTabTitle((TextView) title, position);
+        } else if (title instanceof TabTitleView) {
+            bindTabTitle((TabTitleView) title, position);
+        }
+    }
+
+    /**
+     * Applies pre-resolved title color to a precomputed tab title.
+     *
+     * @param title    title view
+     * @param position adapter position of the tab
+     */
+    public void bindTabTitle(TabTitleView title, int position) {
+        ColorStateList color = position == mSelectedPosition ? mSelectColor : mDefaultColor;
+        if (title != null && color != null) {
+            title.setTextColor(color);
+        }
+    }
+
+    /**
+     * Applies pre-resolved title color to a tab title.
+     *
+     * @param title    title view
+     * @param position adapter position of the tab
+     */
+    public void bindTabTitle(TextView title, int position) {
+        ColorStateList color = position == mSelectedPosition ? mSelectColor : mDefaultColor;
+        if (title != null && color != null) {
+            title.setTextColor(color);
+        }
+    }
+
+    /**
+     * @deprecated Walks every adapter position and resolves colors each time. Use
+     * {@link #setTabTitleColors}, {@link #setSelectedPosition} and {@link #bindTabTitle} instead.
+     */
+    @Deprecated
     public void changeTabTitleColor(Context context, LinearLayoutManager manager, @IdRes int idRes,
                                     @ColorRes int selectColor, @ColorRes int defaultColor, int pos) {
         if (context == null || manager == null || manager.getItemCount() <= 0 || idRes == -1) {
@@ -43,6 +183,9 @@ public class RecyclerTabHelper {
         }
         for (int i = 0; i < manager.getItemCount(); i++) {
             View view = manager.findViewByPosition(i);
+            if (view == null) {
+                continue;
+            }
             if (view.findViewById(idRes) instanceof TextView) {
                 TextView textView = (TextView) view.findViewById(idRes);
                 if (pos == i) {
@@ -18,27 +18,32 @@ package io.github.clendy.recyclertablayout;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.IntDef;
 import android.support.v4.app.FragmentActivity;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.util.Property;
 import android.view.FocusFinder;
 import android.view.KeyEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewOverlay;
+import android.view.ViewParent;
 import android.view.ViewTreeObserver;
+import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 
@@ -57,6 +62,11 @@ import java.util.List;
 public class RecyclerTabLayout extends RecyclerView implements
         ViewTreeObserver.OnGlobalFocusChangeListener, ViewPager.OnPageChangeListener {
 
+    private static final String TRACE_ON_LAYOUT_TAG = "RTL OnLayout";
+    private static final String TRACE_SELECTION_ON_LAYOUT_TAG = "RTL SelectionOnLayout";
+    private static final String TRACE_CHILD_FOCUS_TAG = "RTL ChildFocus";
+    private static final String TRACE_ANIMATE_SELECTOR_TAG = "RTL AnimateSelector";
+
     private ViewPager mViewPager;
 
     /**
@@ -69,9 +79,6 @@ public class RecyclerTabLayout extends RecyclerView implements
      */
     private final FocusArchivist mFocusArchivist = new FocusArchivist();
 
-    private static final Property<Drawable, Rect> BOUNDS_PROP = Property.of(
-            Drawable.class, Rect.class, "bounds");
-
     private LinearLayoutManager mLinearLayoutManager;
     private FragmentActivity mActivity;
 
@@ -84,31 +91,133 @@ public class RecyclerTabLayout extends RecyclerView implements
     private static final int FOCUSED = 1;
     private static final int SELECTOR_COUNT = 2;
 
+    @IntDef({SELECTOR_RENDER_DEFAULT, SELECTOR_RENDER_DIRTY_RECT, SELECTOR_RENDER_OVERLAY})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SelectorRenderMode {
+    }
+
+    /**
+     * Selectors are drawn in {@link #onDraw(Canvas)} and every selector invalidates itself.
+     */
+    public static final int SELECTOR_RENDER_DEFAULT = 0;
+    /**
+     * Selectors are drawn in {@link #onDraw(Canvas)}, but each animation frame invalidates only
+     * the union of the previous and next selector bounds.
+     */
+    public static final int SELECTOR_RENDER_DIRTY_RECT = 1;
+    /**
+     * Selectors are drawn through the view's {@link ViewOverlay}, so moving them does not
+     * re-record the tabs. Overlay content is drawn atop of the tabs: unlike the other modes, a
+     * translucent selector tints the tab content it covers, e.g. the titles. This mode only
+     * applies while no selector is opaque, which would hide the tab content. Falls back to
+     * {@link #SELECTOR_RENDER_DIRTY_RECT} below API 18 or with an opaque selector.
+     */
+    public static final int SELECTOR_RENDER_OVERLAY = 2;
+
     private final AdapterDataObserver mDataObserver = new LocalAdapterDataObserver();
 
     private boolean mRememberLastFocus = true;
 
     private boolean mSmoothScrolling = false;
 
+    /**
+     * If true, the adapter is repeated endlessly and the strip wraps around.
+     */
+    private boolean mCircular = false;
+    private Adapter mTabAdapter;
+
+    private int mExtraLayoutSpace = 0;
+    private int mPrefetchItemCount = 0;
+    private TabMeasureCache mTabMeasureCache;
+
+    /**
+     * If true, focus along the main axis moves to adapter position &plusmn;1 without FocusFinder.
+     */
+    private boolean mLinearFocusNavigation = false;
+
     private final Rect mSelectorSourceRect = new Rect();
     private final Rect mSelectorDestRect = new Rect();
     private final Interpolator mTransitionInterpolator = new LinearInterpolator();
-    private final Animator[] mSelectorAnimators = new Animator[SELECTOR_COUNT];
     private final Drawable[] mSelectorDrawables = new Drawable[SELECTOR_COUNT];
-    private AnimatorSet mSelectorAnimator;
+    private final RectEvaluator mSelectorEvaluator = new RectEvaluator();
+
+    /**
+     * Single long-lived animator driving every selector. It is retargeted in place on each focus
+     * change instead of being cancelled and re-created, so key presses allocate nothing.
+     */
+    private final ValueAnimator mSelectorAnimator = ValueAnimator.ofFloat(0f, 1f);
     private int mSelectorVelocity = 0;
 
+    /**
+     * If true, selector follows ViewPager scroll offset directly while the strip has no focus.
+     */
+    private boolean mSelectorTracksPager = false;
+    private final Rect mTrackStartRect = new Rect();
+    private final Rect mTrackEndRect = new Rect();
+
+    @IntDef({SELECTOR_MOTION_LINEAR, SELECTOR_MOTION_SPRING})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SelectorMotion {
+    }
+
+    /**
+     * Selectors move at constant velocity, see {@link #getSelectorVelocity()}.
+     */
+    public static final int SELECTOR_MOTION_LINEAR = 0;
+    /**
+     * Selectors are moved by a damped spring that keeps its velocity when retargeted.
+     */
+    public static final int SELECTOR_MOTION_SPRING = 1;
+
+    @SelectorMotion
+    private int mSelectorMotion = SELECTOR_MOTION_LINEAR;
+    private final SelectorSpring mSelectorSpring = new SelectorSpring();
+    private final Rect mSpringBounds = new Rect();
+    private boolean mSpringRunning = false;
+    private long mSpringFrameTime;
+
+    private final Runnable mSpringFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            stepSelectorSpring();
+        }
+    };
+
+    @SelectorRenderMode
+    private int mSelectorRenderMode = SELECTOR_RENDER_DEFAULT;
+    // whether any selector reported PixelFormat.OPAQUE when it was set
+    private boolean mHasOpaqueSelector = false;
+    private final Rect mSelectorDirtyRect = new Rect();
+    private boolean mSuppressSelectorInvalidate = false;
+
     private final SelectAnimatorListener mReusableSelectListener = new SelectAnimatorListener();
 
+    /**
+     * If true, repeated D-pad events arriving within one frame are merged into one focus jump.
+     */
+    private boolean mKeyRepeatCoalescing = false;
+    private int mCoalescedSteps = 0;
+    private boolean mCoalescedFocusPosted = false;
+
+    private final Runnable mCoalescedFocusRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mCoalescedFocusPosted = false;
+            flushCoalescedSteps();
+        }
+    };
+
 
     private class LocalAdapterDataObserver extends AdapterDataObserver {
 
         @Override
         public void onChanged() {
+            mFocusArchivist.onChanged();
             if (!getAdapter().hasStableIds()) {
                 mPendingSelectionInt = getSelectedItemPosition();
                 if (mPendingSelectionInt == NO_POSITION) {
-                    mPendingSelectionInt = 0;
+                    // the first tab, in circular mode its copy nearest to what is laid out
+                    mPendingSelectionInt = toVirtualPosition(0);
                 }
             }
         }
@@ -121,32 +230,36 @@ public class RecyclerTabLayout extends RecyclerView implements
                     mPendingSelectionInt = getSelectedItemPosition();
                 }
                 if (mPendingSelectionInt == NO_POSITION) {
-                    mPendingSelectionInt = 0;
+                    // the first tab, in circular mode its copy nearest to what is laid out
+                    mPendingSelectionInt = toVirtualPosition(0);
                 }
             }
         }
 
         @Override
         public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mFocusArchivist.onItemRangeMoved(fromPosition, toPosition, itemCount);
             int selectedPos = getSelectedItemPosition();
             if (selectedPos >= fromPosition && selectedPos < fromPosition + itemCount) {
-                setSelection(selectedPos - fromPosition + toPosition);
+                setSelectionInternal(selectedPos - fromPosition + toPosition);
             }
         }
 
         @Override
         public void onItemRangeInserted(int positionStart, int itemCount) {
+            mFocusArchivist.onItemRangeInserted(positionStart, itemCount);
             int selectedPos = getSelectedItemPosition();
             if (selectedPos >= positionStart && selectedPos < positionStart + itemCount) {
-                setSelection(selectedPos + itemCount);
+                setSelectionInternal(selectedPos + itemCount);
             }
         }
 
         @Override
         public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mFocusArchivist.onItemRangeRemoved(positionStart, itemCount);
             int selectedPos = getSelectedItemPosition();
             if (selectedPos >= positionStart && selectedPos < positionStart + itemCount) {
-                setSelection(positionStart);
+                setSelectionInternal(positionStart);
             }
         }
     }
@@ -165,6 +278,7 @@ public class RecyclerTabLayout extends RecyclerView implements
 
         @Override
         public void onAnimationEnd(Animator animation) {
+            recordSelectionPhase(SelectionMetrics.PHASE_SELECTOR_SETTLED);
             if (mToSelect != null) {
                 childSetSelected(mToSelect, true);
             }
@@ -176,6 +290,20 @@ public class RecyclerTabLayout extends RecyclerView implements
         }
     }
 
+    /**
+     * Moves all selectors to the bounds interpolated between source and destination rects.
+     */
+    private final ValueAnimator.AnimatorUpdateListener mSelectorUpdateListener =
+            new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    recordSelectorFrame();
+                    applySelectorBounds(mSelectorEvaluator.evaluate(
+                            animation.getAnimatedFraction(),
+                            mSelectorSourceRect, mSelectorDestRect));
+                }
+            };
+
     /**
      * Callback for {@link Drawable} selectors. View must keep this reference in order for
      * {@link java.lang.ref.WeakReference} in selectors to survive.
@@ -185,7 +313,9 @@ public class RecyclerTabLayout extends RecyclerView implements
     private final Drawable.Callback mSelectorCallback = new Drawable.Callback() {
         @Override
         public void invalidateDrawable(Drawable who) {
-            invalidate(who.getBounds());
+            if (!mSuppressSelectorInvalidate) {
+                invalidate(who.getBounds());
+            }
         }
 
         @Override
@@ -200,11 +330,36 @@ public class RecyclerTabLayout extends RecyclerView implements
     };
 
 
+    /**
+     * Delay in milliseconds a selected tab has to stay selected before the ViewPager follows it.
+     */
+    private int mPagerCommitDelay = 0;
+    private int mPendingPagerIndex = NO_POSITION;
+
+    private final Runnable mPagerCommitRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int index = mPendingPagerIndex;
+            mPendingPagerIndex = NO_POSITION;
+            setCurrentPager(index);
+        }
+    };
+
     private OnItemClickListener mOnItemClickListener;
     private final List<OnItemSelectedListener> mOnItemSelectedListenerList = new ArrayList<>();
     private OnViewPagerScrollStateListener mOnViewPagerScrollStateListener;
     private OnKeyInterceptListener mOnKeyInterceptListener;
 
+    private static final float FRAME_INTERVAL_MILLIS = 1000f / 60f;
+
+    private SelectionMetrics mSelectionMetrics;
+    private OnSelectionMetricsListener mOnSelectionMetricsListener;
+    private int mMetricsReportInterval;
+    private int mMetricsSelections;
+    private long mMetricsKeyDownTime = 0;
+    private int mMetricsRecordedPhases;
+    private long mLastSelectorFrameTime = 0;
+
     /**
      * Interface definition for a callback to be invoked when an item in this
      * RecyclerTabGroup has been clicked.
@@ -235,6 +390,18 @@ public class RecyclerTabLayout extends RecyclerView implements
         void onPageScrollStateChanged(int state);
     }
 
+    /**
+     * Interface definition for a callback to be invoked with aggregated selection latencies.
+     */
+    public interface OnSelectionMetricsListener {
+
+        /**
+         * @param parent  tab layout
+         * @param metrics aggregated metrics, reused between calls
+         */
+        void onSelectionMetrics(RecyclerTabLayout parent, SelectionMetrics metrics);
+    }
+
     /**
      * Interface definition for a callback to be invoked when intercept key event.
      */
@@ -282,6 +449,12 @@ public class RecyclerTabLayout extends RecyclerView implements
 
                 setSmoothScrolling(ta.getBoolean(R.styleable.RecyclerTabLayout_smoothScrolling,
                         false));
+
+                setPagerCommitDelay(ta.getInt(R.styleable.RecyclerTabLayout_pagerCommitDelay, 0));
+
+                //noinspection WrongConstant
+                setSelectorRenderMode(ta.getInt(R.styleable.RecyclerTabLayout_selectorRenderMode,
+                        SELECTOR_RENDER_DEFAULT));
             } finally {
                 ta.recycle();
             }
@@ -294,6 +467,10 @@ public class RecyclerTabLayout extends RecyclerView implements
         setWillNotDraw(false);
         setOverScrollMode(View.OVER_SCROLL_NEVER);
 
+        mSelectorAnimator.setInterpolator(mTransitionInterpolator);
+        mSelectorAnimator.addUpdateListener(mSelectorUpdateListener);
+        mSelectorAnimator.addListener(mReusableSelectListener);
+
         addOnItemSelectedListener(mOnItemSelectedListener);
     }
 
@@ -308,7 +485,11 @@ public class RecyclerTabLayout extends RecyclerView implements
      * @param orientation {@link #HORIZONTAL} or {@link #VERTICAL}
      */
     private void setOrientation(int orientation) {
-        mLinearLayoutManager = new NLayoutManager(getContext(), mSelectorDrawables);
+        NLayoutManager layoutManager = new NLayoutManager(getContext(), mSelectorDrawables);
+        layoutManager.setExtraLayoutSpace(mExtraLayoutSpace);
+        layoutManager.setPrefetchItemCount(mPrefetchItemCount);
+        layoutManager.setMeasureCache(mTabMeasureCache);
+        mLinearLayoutManager = layoutManager;
         mLinearLayoutManager.setReverseLayout(false);
         if (orientation == 0) {
             mLinearLayoutManager.setOrientation(LinearLayoutManager.HORIZONTAL);
@@ -318,6 +499,57 @@ public class RecyclerTabLayout extends RecyclerView implements
         setLayoutManager(mLinearLayoutManager);
     }
 
+    /**
+     * Sets minimum extra space, in pixels, laid out beyond the visible area of the strip.
+     *
+     * @param extraLayoutSpace extra space in pixels
+     */
+    public void setExtraLayoutSpace(int extraLayoutSpace) {
+        mExtraLayoutSpace = extraLayoutSpace;
+        if (mLinearLayoutManager instanceof NLayoutManager) {
+            ((NLayoutManager) mLinearLayoutManager).setExtraLayoutSpace(extraLayoutSpace);
+        }
+    }
+
+    public int getExtraLayoutSpace() {
+        return mExtraLayoutSpace;
+    }
+
+    /**
+     * Sets how many tabs are laid out ahead of focus in the direction it travels, so they are
+     * already bound and measured when focus arrives.
+     *
+     * @param prefetchItemCount number of tabs, zero disables lookahead
+     */
+    public void setPrefetchItemCount(int prefetchItemCount) {
+        mPrefetchItemCount = prefetchItemCount;
+        if (mLinearLayoutManager instanceof NLayoutManager) {
+            ((NLayoutManager) mLinearLayoutManager).setPrefetchItemCount(prefetchItemCount);
+        }
+    }
+
+    public int getPrefetchItemCount() {
+        return mPrefetchItemCount;
+    }
+
+    /**
+     * Sets the cache of measured tab sizes. Tabs whose view holders implement
+     * {@link TabMeasureCache.MeasureKeyProvider} and whose key is cached are not measured again.
+     * One cache can be shared by strips with identical tab layouts.
+     *
+     * @param cache measure cache, null to disable caching
+     */
+    public void setTabMeasureCache(TabMeasureCache cache) {
+        mTabMeasureCache = cache;
+        if (mLinearLayoutManager instanceof NLayoutManager) {
+            ((NLayoutManager) mLinearLayoutManager).setMeasureCache(cache);
+        }
+    }
+
+    public TabMeasureCache getTabMeasureCache() {
+        return mTabMeasureCache;
+    }
+
     /**
      * Sets selectors velocity. Zero or less velocity means that transition will be instant.
      *
@@ -327,6 +559,54 @@ public class RecyclerTabLayout extends RecyclerView implements
         mSelectorVelocity = velocity;
     }
 
+    /**
+     * Sets selector tracking flag. If set to true and the strip has no focus, selector bounds are
+     * interpolated between tabs from the ViewPager scroll offset on every scroll frame, and the
+     * selector is not animated when a page gets selected.
+     *
+     * @param tracksPager if true, selector follows ViewPager scrolling
+     */
+    public void setSelectorTracksPager(boolean tracksPager) {
+        mSelectorTracksPager = tracksPager;
+    }
+
+    /**
+     * Gets selector tracking flag.
+     *
+     * @return true if selector follows ViewPager scrolling
+     * @see #setSelectorTracksPager
+     */
+    public boolean isSelectorTracksPager() {
+        return mSelectorTracksPager;
+    }
+
+    /**
+     * Sets how selectors move between tabs. Zero or less selector velocity still makes the
+     * transition instant.
+     *
+     * @param motion {@link #SELECTOR_MOTION_LINEAR} or {@link #SELECTOR_MOTION_SPRING}
+     */
+    public void setSelectorMotion(@SelectorMotion int motion) {
+        mSelectorMotion = motion;
+    }
+
+    @SelectorMotion
+    public int getSelectorMotion() {
+        return mSelectorMotion;
+    }
+
+    /**
+     * Configures the spring used by {@link #SELECTOR_MOTION_SPRING}.
+     *
+     * @param stiffness    spring stiffness, in 1/s&sup2;
+     * @param dampingRatio damping ratio, 1 is critical damping
+     * @param maxFrames    frames after which the selector snaps to its destination
+     */
+    public void setSelectorSpring(float stiffness, float dampingRatio, int maxFrames) {
+        mSelectorSpring.setSpring(stiffness, dampingRatio);
+        mSelectorSpring.setMaxFrames(maxFrames);
+    }
+
     /**
      * Gets selectors velocity.
      *
@@ -416,9 +696,138 @@ public class RecyclerTabLayout extends RecyclerView implements
     private void setSelector(@Selector int index, Drawable drawable) {
         enforceSelectorIndexBounds(index);
 
+        boolean wasOverlay = isSelectorOverlayActive();
+        if (wasOverlay) {
+            detachSelectorFromOverlay(mSelectorDrawables[index]);
+        }
         mSelectorDrawables[index] = drawable;
-        mSelectorAnimators[index] = createSelectorAnimator(drawable);
+        mHasOpaqueSelector = hasOpaqueSelector();
         setSelectorCallback(drawable);
+        if (wasOverlay || isSelectorOverlayActive()) {
+            // an opaque selector takes the others out of the overlay as well
+            syncSelectorOverlay();
+            invalidate();
+        }
+    }
+
+    /**
+     * Sets how selectors are rendered and invalidated while they move.
+     *
+     * @param mode one of {@link #SELECTOR_RENDER_DEFAULT}, {@link #SELECTOR_RENDER_DIRTY_RECT}
+     *             or {@link #SELECTOR_RENDER_OVERLAY}
+     */
+    public void setSelectorRenderMode(@SelectorRenderMode int mode) {
+        if (mSelectorRenderMode == mode) {
+            return;
+        }
+        boolean wasOverlay = isSelectorOverlayActive();
+        mSelectorRenderMode = mode;
+        if (wasOverlay || isSelectorOverlayActive()) {
+            syncSelectorOverlay();
+        }
+        invalidate();
+    }
+
+    @SelectorRenderMode
+    public int getSelectorRenderMode() {
+        return mSelectorRenderMode;
+    }
+
+    private boolean isSelectorOverlayActive() {
+        return mSelectorRenderMode == SELECTOR_RENDER_OVERLAY
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && !mHasOpaqueSelector;
+    }
+
+    private boolean hasOpaqueSelector() {
+        for (Drawable selector : mSelectorDrawables) {
+            if (selector != null && selector.getOpacity() == PixelFormat.OPAQUE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves selectors, invalidating according to the selector render mode.
+     *
+     * @param bounds new selector bounds
+     */
+    private void applySelectorBounds(Rect bounds) {
+        if (mSelectorRenderMode == SELECTOR_RENDER_DIRTY_RECT
+                || (mSelectorRenderMode == SELECTOR_RENDER_OVERLAY
+                && !isSelectorOverlayActive())) {
+            moveSelectorsDirtyRect(bounds);
+        } else {
+            moveSelectors(bounds);
+        }
+    }
+
+    /**
+     * Moves selectors and lets each of them invalidate itself.
+     *
+     * @param bounds new selector bounds
+     */
+    private void moveSelectors(Rect bounds) {
+        for (Drawable selector : mSelectorDrawables) {
+            if (selector != null) {
+                selector.setBounds(bounds);
+                if (isSelectorOverlayActive()) {
+                    // setBounds() only invalidates the old bounds
+                    selector.invalidateSelf();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves selectors and invalidates only the union of their old and new bounds, once.
+     *
+     * @param bounds new selector bounds
+     */
+    private void moveSelectorsDirtyRect(Rect bounds) {
+        mSelectorDirtyRect.set(bounds);
+        mSuppressSelectorInvalidate = true;
+        for (Drawable selector : mSelectorDrawables) {
+            if (selector != null) {
+                mSelectorDirtyRect.union(selector.getBounds());
+                selector.setBounds(bounds);
+            }
+        }
+        mSuppressSelectorInvalidate = false;
+        invalidate(mSelectorDirtyRect);
+    }
+
+    /**
+     * Puts visible selectors into the view overlay when overlay rendering is active, otherwise
+     * takes them out of it and restores {@link #mSelectorCallback}.
+     */
+    private void syncSelectorOverlay() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return;
+        }
+        boolean overlay = isSelectorOverlayActive();
+        for (Drawable selector : mSelectorDrawables) {
+            if (selector == null) {
+                continue;
+            }
+            detachSelectorFromOverlay(selector);
+            if (overlay && selector.isVisible()) {
+                getViewOverlay().add(selector);
+            }
+        }
+    }
+
+    private void detachSelectorFromOverlay(Drawable selector) {
+        if (selector != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            getViewOverlay().remove(selector);
+            setSelectorCallback(selector);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private ViewOverlay getViewOverlay() {
+        return getOverlay();
     }
 
     private Drawable getSelector(int index) {
@@ -481,6 +890,74 @@ public class RecyclerTabLayout extends RecyclerView implements
         return mOnKeyInterceptListener;
     }
 
+    /**
+     * Register a callback to be invoked with latencies measured from D-pad key-down to the focused
+     * tab, the settled selector and the selected callback. Collecting metrics is disabled while
+     * no listener is registered.
+     *
+     * @param listener       the callback that will be invoked, null to disable metrics
+     * @param reportInterval number of completed selections between callbacks
+     */
+    public void setOnSelectionMetricsListener(OnSelectionMetricsListener listener,
+                                              int reportInterval) {
+        mOnSelectionMetricsListener = listener;
+        mMetricsReportInterval = Math.max(1, reportInterval);
+        mMetricsSelections = 0;
+        mMetricsKeyDownTime = 0;
+        if (listener != null && mSelectionMetrics == null) {
+            mSelectionMetrics = new SelectionMetrics();
+        }
+    }
+
+    /**
+     * Gets collected selection metrics.
+     *
+     * @return metrics, or null if they have never been enabled
+     */
+    public SelectionMetrics getSelectionMetrics() {
+        return mSelectionMetrics;
+    }
+
+    private boolean isMetricsEnabled() {
+        return mOnSelectionMetricsListener != null;
+    }
+
+    private void startSelectionMetrics(KeyEvent event) {
+        if (event.getAction() == KeyEvent.ACTION_DOWN && getMainAxisStep(event.getKeyCode()) != 0) {
+            mMetricsKeyDownTime = event.getEventTime();
+            mMetricsRecordedPhases = 0;
+        }
+    }
+
+    private void recordSelectionPhase(int phase) {
+        if (!isMetricsEnabled() || mMetricsKeyDownTime == 0
+                || (mMetricsRecordedPhases & (1 << phase)) != 0) {
+            return;
+        }
+        mMetricsRecordedPhases |= 1 << phase;
+        mSelectionMetrics.record(phase, SystemClock.uptimeMillis() - mMetricsKeyDownTime);
+
+        if (phase == SelectionMetrics.PHASE_ITEM_SELECTED) {
+            mMetricsKeyDownTime = 0;
+            if (++mMetricsSelections >= mMetricsReportInterval) {
+                mMetricsSelections = 0;
+                mOnSelectionMetricsListener.onSelectionMetrics(this, mSelectionMetrics);
+            }
+        }
+    }
+
+    private void recordSelectorFrame() {
+        if (!isMetricsEnabled()) {
+            return;
+        }
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        if (mLastSelectorFrameTime != 0) {
+            int missed = Math.round((now - mLastSelectorFrameTime) / FRAME_INTERVAL_MILLIS) - 1;
+            mSelectionMetrics.recordFrame(Math.max(0, missed));
+        }
+        mLastSelectorFrameTime = now;
+    }
+
     /**
      * Register a callback to be invoked when intercept RecyclerView's key event.
      *
@@ -490,6 +967,12 @@ public class RecyclerTabLayout extends RecyclerView implements
         mOnKeyInterceptListener = listener;
     }
 
+    /**
+     * Gets the RecyclerView adapter position of the focused tab. In circular mode this is a
+     * virtual position, see {@link #getRealPosition(int)}.
+     *
+     * @return adapter position of the focused tab
+     */
     public int getSelectedItemPosition() {
         View focusedChild = getFocusedChild();
         return getChildAdapterPosition(focusedChild);
@@ -497,15 +980,185 @@ public class RecyclerTabLayout extends RecyclerView implements
 
     /**
      * Set adapter position for item to select if RecycleView currently has focus or schedule
-     * selection on next focus obtainment.
+     * selection on next focus obtainment. In circular mode the copy of the item nearest to the
+     * current selection is selected.
      *
      * @param adapterPosition adapter position of item to be selected
      */
     public void setSelection(int adapterPosition) {
+        setSelectionInternal(toVirtualPosition(adapterPosition));
+    }
+
+    private void setSelectionInternal(int adapterPosition) {
         mPendingSelectionInt = adapterPosition;
         scrollToPosition(adapterPosition);
     }
 
+    /**
+     * Sets circular flag. If set to true, tabs are repeated endlessly so the strip wraps around
+     * at both ends. Listener callbacks, {@link #setSelection(int)} and ViewPager sync keep
+     * using real adapter positions; {@link ViewHolder#getAdapterPosition()} returns virtual
+     * positions, which {@link #getRealPosition(int)} maps back. Stable ids of the tab adapter
+     * must fit into an int in circular mode.
+     *
+     * @param circular if true, enable circular mode
+     */
+    public void setCircular(boolean circular) {
+        if (mCircular == circular) {
+            return;
+        }
+        mCircular = circular;
+        mFocusArchivist.clear();
+        if (mTabAdapter != null) {
+            setAdapter(mTabAdapter);
+        }
+    }
+
+    public boolean isCircular() {
+        return mCircular;
+    }
+
+    /**
+     * Gets the adapter passed to {@link #setAdapter(Adapter)}. Unlike {@link #getAdapter()}, it
+     * is not wrapped in circular mode.
+     *
+     * @return tab adapter
+     */
+    public Adapter getTabAdapter() {
+        return mTabAdapter;
+    }
+
+    /**
+     * Maps a RecyclerView adapter position to the position in the tab adapter.
+     *
+     * @param adapterPosition adapter position, virtual in circular mode
+     * @return position in the tab adapter
+     */
+    public int getRealPosition(int adapterPosition) {
+        Adapter adapter = getAdapter();
+        if (adapter instanceof CircularTabAdapter) {
+            return ((CircularTabAdapter) adapter).getRealPosition(adapterPosition);
+        }
+        return adapterPosition;
+    }
+
+    /**
+     * Gets the tab adapter's stable id of a child.
+     *
+     * @param child        child view
+     * @param realPosition position of the child in the tab adapter
+     * @return item id, or NO_ID
+     */
+    private long getRealItemId(View child, int realPosition) {
+        if (getAdapter() instanceof CircularTabAdapter) {
+            return mTabAdapter.hasStableIds() && realPosition != NO_POSITION
+                    ? mTabAdapter.getItemId(realPosition) : NO_ID;
+        }
+        return getChildItemId(child);
+    }
+
+    /**
+     * Maps a tab adapter position to the nearest RecyclerView adapter position.
+     *
+     * @param realPosition position in the tab adapter
+     * @return adapter position, virtual in circular mode
+     */
+    private int toVirtualPosition(int realPosition) {
+        Adapter adapter = getAdapter();
+        if (!(adapter instanceof CircularTabAdapter)) {
+            return realPosition;
+        }
+        int reference = getSelectedItemPosition();
+        if (reference == NO_POSITION) {
+            reference = mPendingSelectionInt;
+        }
+        if (reference == NO_POSITION && mLinearLayoutManager != null) {
+            reference = mLinearLayoutManager.findFirstVisibleItemPosition();
+        }
+        return ((CircularTabAdapter) adapter).getVirtualPosition(realPosition, reference);
+    }
+
+    /**
+     * Sets key-repeat coalescing flag. If set to true, repeated D-pad events along the main axis
+     * are accumulated and applied once per frame as a single multi-step focus jump, so
+     * intermediate tabs get neither a selector animation nor listener callbacks.
+     *
+     * @param coalescing if true, enable key-repeat coalescing
+     */
+    public void setKeyRepeatCoalescing(boolean coalescing) {
+        mKeyRepeatCoalescing = coalescing;
+        if (!coalescing) {
+            cancelCoalescedSteps();
+        }
+    }
+
+    /**
+     * Gets key-repeat coalescing flag.
+     *
+     * @return true if key-repeat coalescing is enabled
+     * @see #setKeyRepeatCoalescing
+     */
+    public boolean isKeyRepeatCoalescing() {
+        return mKeyRepeatCoalescing;
+    }
+
+    /**
+     * Sets the time a tab has to stay selected before the ViewPager is moved to its page. Only
+     * the last tab selected within that window drives the ViewPager, so sweeping across tabs
+     * does not instantiate pages the user never stops on. Zero or less commits immediately.
+     *
+     * @param delayMillis settle delay in milliseconds
+     */
+    public void setPagerCommitDelay(int delayMillis) {
+        mPagerCommitDelay = delayMillis;
+        if (delayMillis <= 0) {
+            cancelPendingPagerCommit();
+        }
+    }
+
+    /**
+     * Gets the ViewPager commit delay.
+     *
+     * @return settle delay in milliseconds
+     * @see #setPagerCommitDelay
+     */
+    public int getPagerCommitDelay() {
+        return mPagerCommitDelay;
+    }
+
+    /**
+     * Sets linear focus navigation flag. If set to true, arrow keys along the main axis resolve
+     * the next tab from adapter positions instead of running a geometric
+     * {@link FocusFinder} search. Off-screen targets are scrolled into view and focused after
+     * the next layout pass.
+     *
+     * @param linearFocusNavigation if true, enable linear focus navigation
+     */
+    public void setLinearFocusNavigation(boolean linearFocusNavigation) {
+        mLinearFocusNavigation = linearFocusNavigation;
+    }
+
+    /**
+     * Gets linear focus navigation flag.
+     *
+     * @return true if linear focus navigation is enabled
+     * @see #setLinearFocusNavigation
+     */
+    public boolean isLinearFocusNavigation() {
+        return mLinearFocusNavigation;
+    }
+
+    /**
+     * Switch the context last focus is remembered for, for example the current ViewPager page
+     * or the adapter instance shown. Returning to a context restores the focus remembered for
+     * it. A bounded number of recently used contexts is kept.
+     *
+     * @param context context key, null for the default context
+     */
+    public void setFocusContext(Object context) {
+        mFocusArchivist.setContext(context);
+    }
+
     public boolean isRememberLastFocus() {
         return mRememberLastFocus;
     }
@@ -585,23 +1238,55 @@ public class RecyclerTabLayout extends RecyclerView implements
             oldAdapter.unregisterAdapterDataObserver(mDataObserver);
         }
 
+        mTabAdapter = newAdapter;
+        if (mCircular && newAdapter != null) {
+            newAdapter = new CircularTabAdapter(newAdapter);
+        }
+
         super.setAdapter(newAdapter);
 
         if (newAdapter != null) {
             newAdapter.registerAdapterDataObserver(mDataObserver);
         }
+        if (newAdapter instanceof CircularTabAdapter) {
+            // start in the middle so the strip can wrap in both directions
+            mPendingSelectionInt = NO_POSITION;
+            scrollToPosition(((CircularTabAdapter) newAdapter)
+                    .getVirtualPosition(0, NO_POSITION));
+        }
+    }
+
+    /**
+     * Pre-creates tab view holders during idle time so the first layout of this or any other
+     * strip sharing the pool takes them from the pool. If this strip does not use a
+     * {@link TabViewPool} yet, a new one is set. Share the pool with other strips through
+     * {@link #setRecycledViewPool(RecycledViewPool)}.
+     *
+     * @param viewType view type of the tabs
+     * @param count    number of tab view holders to create
+     */
+    public void warmUpTabViews(int viewType, int count) {
+        RecycledViewPool pool = getRecycledViewPool();
+        if (!(pool instanceof TabViewPool)) {
+            pool = new TabViewPool();
+            setRecycledViewPool(pool);
+        }
+        ((TabViewPool) pool).warmUp(this, viewType, count);
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        Tracer.beginSection(TRACE_ON_LAYOUT_TAG);
         super.onLayout(changed, l, t, r, b);
 
         if (mPendingSelectionInt != NO_POSITION) {
             setSelectionOnLayout(mPendingSelectionInt);
         }
+        Tracer.endSection();
     }
 
     private void setSelectionOnLayout(int position) {
+        Tracer.beginSection(TRACE_SELECTION_ON_LAYOUT_TAG);
         RecyclerView.ViewHolder holder = findViewHolderForAdapterPosition(position);
 
         if (holder != null) {
@@ -611,6 +1296,17 @@ public class RecyclerTabLayout extends RecyclerView implements
                 mFocusArchivist.archiveFocus(this, holder.itemView);
             }
         }
+        Tracer.endSection();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        // match_parent tabs depend on the strip size
+        if (mTabMeasureCache != null && oldw != 0 && oldh != 0) {
+            mTabMeasureCache.invalidate();
+        }
     }
 
     @Override
@@ -625,6 +1321,10 @@ public class RecyclerTabLayout extends RecyclerView implements
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
 
+        cancelCoalescedSteps();
+        cancelPendingPagerCommit();
+        cancelSelectorSpring();
+
         ViewTreeObserver obs = getViewTreeObserver();
         obs.removeOnGlobalFocusChangeListener(this);
     }
@@ -636,6 +1336,15 @@ public class RecyclerTabLayout extends RecyclerView implements
 
     @Override
     public View focusSearch(View focused, int direction) {
+        if (mLinearFocusNavigation) {
+            int step = getMainAxisFocusStep(direction);
+            if (step != 0) {
+                View nextFocus = findNextLinearFocus(focused, step);
+                if (nextFocus != null) {
+                    return nextFocus;
+                }
+            }
+        }
         if (mLinearLayoutManager.getOrientation() == LinearLayoutManager.HORIZONTAL) {
             if (direction == View.FOCUS_LEFT || direction == View.FOCUS_RIGHT) {
                 View nextFocus = FocusFinder.getInstance().findNextFocus(this, focused, direction);
@@ -672,12 +1381,70 @@ public class RecyclerTabLayout extends RecyclerView implements
                         == mPendingSelectionInt) {
                     lastFocusedView.requestFocus();
                 } else {
-                    mLinearLayoutManager.findViewByPosition(mPendingSelectionInt).requestFocus();
+                    View pendingView =
+                            mLinearLayoutManager.findViewByPosition(mPendingSelectionInt);
+                    if (pendingView != null) {
+                        pendingView.requestFocus();
+                    } else {
+                        // not laid out; setSelectionOnLayout() moves focus once it is
+                        lastFocusedView.requestFocus();
+                        scrollToPosition(mPendingSelectionInt);
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Resolves the next focus target along the main axis from adapter positions.
+     *
+     * @param focused currently focused view
+     * @param step    -1 or 1
+     * @return next focus target, {@code focused} if the target has to be laid out first, or null
+     * if the target cannot be resolved this way
+     */
+    private View findNextLinearFocus(View focused, int step) {
+        View child = findDirectChild(focused);
+        if (child == null || getAdapter() == null) {
+            return null;
+        }
+        int position = getChildAdapterPosition(child);
+        if (position == NO_POSITION) {
+            return null;
+        }
+        int target = position + step;
+        if (target < 0 || target >= getAdapter().getItemCount()) {
+            // keep focus at the edges, as the FocusFinder path does
+            return focused;
+        }
+
+        View targetView = mLinearLayoutManager.findViewByPosition(target);
+        if (targetView == null) {
+            // focus will be requested in setSelectionOnLayout()
+            setSelectionInternal(target);
+            return focused;
+        }
+        return targetView.isFocusable() ? targetView : null;
+    }
+
+    /**
+     * Finds the direct child of this RecyclerView containing the passed view.
+     *
+     * @param view descendant view
+     * @return direct child, or null if the view is not a descendant
+     */
+    private View findDirectChild(View view) {
+        ViewParent parent = view.getParent();
+        while (parent != null && parent != this) {
+            if (!(parent instanceof View)) {
+                return null;
+            }
+            view = (View) parent;
+            parent = view.getParent();
+        }
+        return parent == this ? view : null;
+    }
+
     /**
      * Request natural focus.
      *
@@ -699,6 +1466,7 @@ public class RecyclerTabLayout extends RecyclerView implements
     public void requestChildFocus(View child, View focused) {
         super.requestChildFocus(child, focused);
 
+        recordSelectionPhase(SelectionMetrics.PHASE_FOCUSED);
         requestChildFocusInner(child, focused);
         fireOnItemFocusedEvent(child);
     }
@@ -714,6 +1482,7 @@ public class RecyclerTabLayout extends RecyclerView implements
     }
 
     private void requestChildFocusInner(View child, View focused) {
+        Tracer.beginSection(TRACE_CHILD_FOCUS_TAG);
         Drawable refSelector = null;
         for (Drawable selector : mSelectorDrawables) {
             if (selector != null) {
@@ -730,16 +1499,15 @@ public class RecyclerTabLayout extends RecyclerView implements
             // Focused cannot be null
             focused.getHitRect(mSelectorDestRect);
 
-            mReusableSelectListener.mToSelect = child;
-            mReusableSelectListener.mToDeselect = mFocusArchivist.getLastFocus(this);
-
-            animateSelectorChange(mReusableSelectListener);
+            animateSelectorChange(child, mFocusArchivist.getLastFocus(this));
 
             mFocusArchivist.archiveFocus(this, child);
         }
+        Tracer.endSection();
     }
 
     private void requestChildFocusInner() {
+        Tracer.beginSection(TRACE_CHILD_FOCUS_TAG);
         Drawable refSelector = null;
         for (Drawable selector : mSelectorDrawables) {
             if (selector != null) {
@@ -749,27 +1517,27 @@ public class RecyclerTabLayout extends RecyclerView implements
         }
 
         int scrollState = getScrollState();
+        View view = mLinearLayoutManager.findViewByPosition(mPendingSelectionInt);
 
-        if (refSelector != null && scrollState == SCROLL_STATE_IDLE) {
+        if (refSelector != null && scrollState == SCROLL_STATE_IDLE && view != null) {
             mSelectorSourceRect.set(refSelector.getBounds());
 
-            View view = mLinearLayoutManager.findViewByPosition(mPendingSelectionInt);
             view.getHitRect(mSelectorDestRect);
 
-            mReusableSelectListener.mToSelect = view;
-            mReusableSelectListener.mToDeselect = mFocusArchivist.getLastFocus(this);
-
-            animateSelectorChange(mReusableSelectListener);
+            animateSelectorChange(view, mFocusArchivist.getLastFocus(this));
 
             mFocusArchivist.archiveFocus(this, view);
         }
+        Tracer.endSection();
     }
 
     @Override
     public void onDraw(Canvas canvas) {
 
-        drawSelectorIfVisible(FOCUSED, canvas);
-        drawSelectorIfVisible(SELECTED, canvas);
+        if (!isSelectorOverlayActive()) {
+            drawSelectorIfVisible(FOCUSED, canvas);
+            drawSelectorIfVisible(SELECTED, canvas);
+        }
 
         super.onDraw(canvas);
     }
@@ -784,55 +1552,125 @@ public class RecyclerTabLayout extends RecyclerView implements
     }
 
     /**
-     * Animates selector when changes happen.
+     * Animates selector when changes happen. If the selector is still moving, the running
+     * animation is retargeted from its current bounds toward {@link #mSelectorDestRect}
+     * instead of being cancelled and restarted.
      *
-     * @param listener AnimatorListener
+     * @param toSelect   child that will be selected when the selector arrives
+     * @param toDeselect child that loses selection
      */
-    private void animateSelectorChange(Animator.AnimatorListener listener) {
-        if (mSelectorAnimator != null) {
-            mSelectorAnimator.cancel();
-        }
-
-        mSelectorAnimator = new AnimatorSet();
-
-        for (int i = 0; i < SELECTOR_COUNT; i++) {
-            mSelectorAnimator.playTogether(mSelectorAnimators[i]);
+    private void animateSelectorChange(View toSelect, View toDeselect) {
+        Tracer.beginSection(TRACE_ANIMATE_SELECTOR_TAG);
+        if (mSelectorMotion == SELECTOR_MOTION_SPRING && mSelectorVelocity > 0) {
+            animateSelectorSpring(toSelect, toDeselect);
+            Tracer.endSection();
+            return;
         }
-
-        mSelectorAnimator.setInterpolator(mTransitionInterpolator);
-        mSelectorAnimator.addListener(listener);
+        cancelSelectorSpring();
 
         int duration = 0;
         if (mSelectorVelocity > 0) {
             int dx = mSelectorDestRect.centerX() - mSelectorSourceRect.centerX();
             int dy = mSelectorDestRect.centerY() - mSelectorSourceRect.centerY();
-            duration = computeTravelDuration(dx, dy, mSelectorVelocity);
+            duration = SelectorGeometry.computeTravelDuration(dx, dy, mSelectorVelocity);
         }
 
+        mReusableSelectListener.mToSelect = toSelect;
+        mReusableSelectListener.mToDeselect = toDeselect;
         mSelectorAnimator.setDuration(duration);
-        mSelectorAnimator.start();
+
+        if (mSelectorAnimator.isRunning()) {
+            // onAnimationStart() will not be called again for a retarget
+            if (toDeselect != null) {
+                childSetSelected(toDeselect, false);
+            }
+            mSelectorAnimator.setCurrentPlayTime(0);
+        } else {
+            mLastSelectorFrameTime = 0;
+            mSelectorAnimator.start();
+        }
+        Tracer.endSection();
+    }
+
+    /**
+     * Retargets the selector spring toward {@link #mSelectorDestRect}, keeping its velocity.
+     *
+     * @param toSelect   child that will be selected when the selector settles
+     * @param toDeselect child that loses selection
+     */
+    private void animateSelectorSpring(View toSelect, View toDeselect) {
+        if (mSelectorAnimator.isRunning()) {
+            mSelectorAnimator.cancel();
+        }
+
+        mReusableSelectListener.mToSelect = toSelect;
+        mReusableSelectListener.mToDeselect = toDeselect;
+        if (toDeselect != null) {
+            childSetSelected(toDeselect, false);
+        }
+
+        if (!mSpringRunning) {
+            mSelectorSpring.snapTo(mSelectorSourceRect);
+        }
+        mSelectorSpring.setTarget(mSelectorDestRect);
+
+        if (!mSpringRunning) {
+            mSpringRunning = true;
+            mLastSelectorFrameTime = 0;
+            mSpringFrameTime = AnimationUtils.currentAnimationTimeMillis();
+            ViewCompat.postOnAnimation(this, mSpringFrameRunnable);
+        }
+    }
+
+    private void stepSelectorSpring() {
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        float dt = (now - mSpringFrameTime) / 1000f;
+        mSpringFrameTime = now;
+
+        recordSelectorFrame();
+        boolean moving = mSelectorSpring.step(dt);
+        mSelectorSpring.getBounds(mSpringBounds);
+        applySelectorBounds(mSpringBounds);
+
+        if (moving) {
+            ViewCompat.postOnAnimation(this, mSpringFrameRunnable);
+        } else {
+            mSpringRunning = false;
+            recordSelectionPhase(SelectionMetrics.PHASE_SELECTOR_SETTLED);
+            if (mReusableSelectListener.mToSelect != null) {
+                childSetSelected(mReusableSelectListener.mToSelect, true);
+            }
+        }
     }
 
-    private Animator createSelectorAnimator(Drawable selector) {
-        return ObjectAnimator.ofObject(
-                selector, BOUNDS_PROP, new RectEvaluator(),
-                mSelectorSourceRect, mSelectorDestRect);
+    private void cancelSelectorSpring() {
+        if (mSpringRunning) {
+            removeCallbacks(mSpringFrameRunnable);
+            mSpringRunning = false;
+        }
     }
 
-    private int computeTravelDuration(int dx, int dy, int velocity) {
-        return (int) (Math.sqrt(dx * dx + dy * dy) / velocity * 1000);
+    private boolean isSelectorMoving() {
+        return mSpringRunning || mSelectorAnimator.isRunning();
     }
 
     private void enforceSelectorsVisibility(boolean isInTouchMode, boolean hasFocus) {
         boolean visible = !isInTouchMode && hasFocus;
+        boolean changed = false;
         for (int i = 0; i < mSelectorDrawables.length; i++) {
+            if (mSelectorDrawables[i] == null) {
+                continue;
+            }
             if (i == FOCUSED) {
-                mSelectorDrawables[i].setVisible(visible, false);
+                changed |= mSelectorDrawables[i].setVisible(visible, false);
             }
             if (i == SELECTED) {
-                mSelectorDrawables[i].setVisible(!visible, false);
+                changed |= mSelectorDrawables[i].setVisible(!visible, false);
             }
         }
+        if (changed && isSelectorOverlayActive()) {
+            syncSelectorOverlay();
+        }
     }
 
     @SuppressWarnings("deprecation")
@@ -873,6 +1711,14 @@ public class RecyclerTabLayout extends RecyclerView implements
             }
         }
 
+        if (isMetricsEnabled()) {
+            startSelectionMetrics(event);
+        }
+
+        if (mKeyRepeatCoalescing && coalesceKeyEvent(event)) {
+            return true;
+        }
+
         boolean consumed = super.dispatchKeyEvent(event);
 
         View focusedChild = getFocusedChild();
@@ -887,6 +1733,121 @@ public class RecyclerTabLayout extends RecyclerView implements
         return consumed;
     }
 
+    /**
+     * Accumulates repeated D-pad events along the main axis, applying them on the next frame.
+     *
+     * @param event key event
+     * @return true if the event has been coalesced
+     */
+    private boolean coalesceKeyEvent(KeyEvent event) {
+        int step = getMainAxisStep(event.getKeyCode());
+        if (step == 0 || event.getAction() != KeyEvent.ACTION_DOWN) {
+            return false;
+        }
+
+        if (event.getRepeatCount() == 0 || getFocusedChild() == null) {
+            // a fresh press must see the focus the user has already been shown
+            if (mCoalescedFocusPosted) {
+                removeCallbacks(mCoalescedFocusRunnable);
+                mCoalescedFocusPosted = false;
+                flushCoalescedSteps();
+            }
+            return false;
+        }
+
+        mCoalescedSteps += step;
+        if (!mCoalescedFocusPosted) {
+            mCoalescedFocusPosted = true;
+            ViewCompat.postOnAnimation(this, mCoalescedFocusRunnable);
+        }
+        return true;
+    }
+
+    /**
+     * Moves focus by all accumulated steps at once.
+     */
+    private void flushCoalescedSteps() {
+        int steps = mCoalescedSteps;
+        mCoalescedSteps = 0;
+
+        View focusedChild = getFocusedChild();
+        if (steps == 0 || focusedChild == null || getAdapter() == null) {
+            return;
+        }
+
+        int from = getChildAdapterPosition(focusedChild);
+        if (from == NO_POSITION) {
+            return;
+        }
+        int target = Math.max(0, Math.min(from + steps, getAdapter().getItemCount() - 1));
+        if (target == from) {
+            return;
+        }
+
+        View targetView = mLinearLayoutManager.findViewByPosition(target);
+        if (targetView != null) {
+            targetView.requestFocus();
+        } else {
+            // focus will be requested in setSelectionOnLayout()
+            setSelectionInternal(target);
+        }
+    }
+
+    private void cancelCoalescedSteps() {
+        if (mCoalescedFocusPosted) {
+            removeCallbacks(mCoalescedFocusRunnable);
+            mCoalescedFocusPosted = false;
+        }
+        mCoalescedSteps = 0;
+    }
+
+    /**
+     * Converts D-pad key code to adapter position step along the layout orientation.
+     *
+     * @param keyCode key code
+     * @return -1 or 1 for keys along the main axis, 0 otherwise
+     */
+    private int getMainAxisStep(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                return getMainAxisFocusStep(View.FOCUS_LEFT);
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                return getMainAxisFocusStep(View.FOCUS_RIGHT);
+            case KeyEvent.KEYCODE_DPAD_UP:
+                return getMainAxisFocusStep(View.FOCUS_UP);
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                return getMainAxisFocusStep(View.FOCUS_DOWN);
+        }
+        return 0;
+    }
+
+    /**
+     * Converts focus direction to adapter position step along the layout orientation.
+     *
+     * @param direction one of {@link View#FOCUS_LEFT}, {@link View#FOCUS_RIGHT},
+     *                  {@link View#FOCUS_UP} or {@link View#FOCUS_DOWN}
+     * @return -1 or 1 for directions along the main axis, 0 otherwise
+     */
+    private int getMainAxisFocusStep(int direction) {
+        if (mLinearLayoutManager == null) {
+            return 0;
+        }
+        if (mLinearLayoutManager.getOrientation() == LinearLayoutManager.HORIZONTAL) {
+            if (direction == View.FOCUS_LEFT) {
+                return -1;
+            } else if (direction == View.FOCUS_RIGHT) {
+                return 1;
+            }
+        } else {
+            if (direction == View.FOCUS_UP) {
+                return -1;
+            } else if (direction == View.FOCUS_DOWN) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
     private boolean isClickEvent(KeyEvent event) {
         int keyCode = event.getKeyCode();
         return keyCode == KeyEvent.KEYCODE_DPAD_CENTER || keyCode == KeyEvent.KEYCODE_ENTER;
@@ -917,16 +1878,16 @@ public class RecyclerTabLayout extends RecyclerView implements
 
     private void fireOnItemClickEvent(View child) {
         if (mOnItemClickListener != null) {
-            int position = getChildAdapterPosition(child);
-            long id = getChildItemId(child);
+            int position = getRealPosition(getChildAdapterPosition(child));
+            long id = getRealItemId(child, position);
             mOnItemClickListener.onItemClick(this, child, position, id);
         }
     }
 
     private void fireOnItemFocusedEvent(View child) {
         if (mOnItemSelectedListenerList != null && mOnItemSelectedListenerList.size() > 0) {
-            int position = getChildAdapterPosition(child);
-            long id = getChildItemId(child);
+            int position = getRealPosition(getChildAdapterPosition(child));
+            long id = getRealItemId(child, position);
             for (OnItemSelectedListener listener : mOnItemSelectedListenerList) {
                 listener.onItemFocused(this, child, position, id);
             }
@@ -934,9 +1895,10 @@ public class RecyclerTabLayout extends RecyclerView implements
     }
 
     private void fireOnItemSelectedEvent(View child) {
+        recordSelectionPhase(SelectionMetrics.PHASE_ITEM_SELECTED);
         if (mOnItemSelectedListenerList != null && mOnItemSelectedListenerList.size() > 0) {
-            int position = getChildAdapterPosition(child);
-            long id = getChildItemId(child);
+            int position = getRealPosition(getChildAdapterPosition(child));
+            long id = getRealItemId(child, position);
             for (OnItemSelectedListener listener : mOnItemSelectedListenerList) {
                 listener.onItemSelected(this, child, position, id);
             }
@@ -946,7 +1908,11 @@ public class RecyclerTabLayout extends RecyclerView implements
     private OnItemSelectedListener mOnItemSelectedListener = new OnItemSelectedListener() {
         @Override
         public void onItemSelected(RecyclerTabLayout parent, View view, int position, long id) {
-            setCurrentPager(position);
+            if (mPagerCommitDelay > 0) {
+                schedulePagerCommit(position);
+            } else {
+                setCurrentPager(position);
+            }
         }
 
         @Override
@@ -970,6 +1936,17 @@ public class RecyclerTabLayout extends RecyclerView implements
         }
     }
 
+    private void schedulePagerCommit(int index) {
+        removeCallbacks(mPagerCommitRunnable);
+        mPendingPagerIndex = index;
+        postDelayed(mPagerCommitRunnable, mPagerCommitDelay);
+    }
+
+    private void cancelPendingPagerCommit() {
+        removeCallbacks(mPagerCommitRunnable);
+        mPendingPagerIndex = NO_POSITION;
+    }
+
     private boolean ensureCurrentPager(int index) {
         return index != -1 && ensureViewPager()
                 && mViewPager.getAdapter() != null
@@ -988,6 +1965,7 @@ public class RecyclerTabLayout extends RecyclerView implements
         }
 
         if (viewPager.equals(mViewPager)) return;
+        cancelPendingPagerCommit();
         if (mViewPager != null)
             mViewPager.setOnPageChangeListener(null);
         if (viewPager.getAdapter() == null)
@@ -1009,8 +1987,56 @@ public class RecyclerTabLayout extends RecyclerView implements
     }
 
 
+    /**
+     * Moves selectors between the tabs of the two visible pages.
+     *
+     * @param position       position of the first visible page
+     * @param positionOffset offset of the second visible page, in range [0, 1)
+     */
+    private void trackSelector(int position, float positionOffset) {
+        if (mLinearLayoutManager == null || isSelectorMoving()) {
+            return;
+        }
+        int startPosition = toVirtualPosition(position);
+        View start = mLinearLayoutManager.findViewByPosition(startPosition);
+        if (start == null) {
+            return;
+        }
+        start.getHitRect(mTrackStartRect);
+        View end = positionOffset > 0
+                ? mLinearLayoutManager.findViewByPosition(startPosition + 1) : null;
+        if (end != null) {
+            end.getHitRect(mTrackEndRect);
+        } else {
+            mTrackEndRect.set(mTrackStartRect);
+        }
+        applySelectorBounds(
+                mSelectorEvaluator.evaluate(positionOffset, mTrackStartRect, mTrackEndRect));
+    }
+
+    /**
+     * Selects the tab of the selected page without animating selectors.
+     */
+    private void commitTrackedSelection() {
+        View view = mLinearLayoutManager.findViewByPosition(mPendingSelectionInt);
+        if (view == null) {
+            return;
+        }
+        View lastFocus = mFocusArchivist.getLastFocus(this);
+        if (lastFocus != null && lastFocus != view) {
+            childSetSelected(lastFocus, false);
+        }
+        view.getHitRect(mSelectorDestRect);
+        applySelectorBounds(mSelectorDestRect);
+        childSetSelected(view, true);
+        mFocusArchivist.archiveFocus(this, view);
+    }
+
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        if (mSelectorTracksPager && !hasFocus()) {
+            trackSelector(position, positionOffset);
+        }
         if (mOnViewPagerScrollStateListener != null) {
             mOnViewPagerScrollStateListener.onPageScrolled(position, positionOffset,
                     positionOffsetPixels);
@@ -1021,7 +2047,11 @@ public class RecyclerTabLayout extends RecyclerView implements
     public void onPageSelected(int position) {
         setSelection(position);
         if (getFocusedChild() == null) {
-            requestChildFocusInner();
+            if (mSelectorTracksPager) {
+                commitTrackedSelection();
+            } else {
+                requestChildFocusInner();
+            }
         }
         if (mOnViewPagerScrollStateListener != null) {
             mOnViewPagerScrollStateListener.onPageSelected(position);
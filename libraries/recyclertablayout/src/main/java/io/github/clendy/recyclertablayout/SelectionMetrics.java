@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+/**
+ * Aggregated latencies from a D-pad key-down in {@link RecyclerTabLayout} to the focused tab,
+ * the settled selector and the selected callback, plus selector animation frame counters.
+ * Latencies are kept in fixed histogram buckets, so recording allocates nothing and
+ * percentiles are approximated by bucket upper bounds.
+ *
+ * @author Clendy
+ */
+public class SelectionMetrics {
+
+    /**
+     * Key-down until the target tab gained focus, which includes laying it out if needed.
+     */
+    public static final int PHASE_FOCUSED = 0;
+    /**
+     * Key-down until the selector arrived at the tab.
+     */
+    public static final int PHASE_SELECTOR_SETTLED = 1;
+    /**
+     * Key-down until {@link RecyclerTabLayout.OnItemSelectedListener#onItemSelected} fired.
+     */
+    public static final int PHASE_ITEM_SELECTED = 2;
+
+    private static final int PHASE_COUNT = 3;
+
+    /**
+     * Upper bounds of histogram buckets, in milliseconds. The last bucket is unbounded.
+     */
+    private static final int[] BUCKET_BOUNDS =
+            {2, 4, 8, 12, 16, 24, 33, 50, 66, 100, 150, 250, 500, 1000};
+
+    private final int[][] mBuckets = new int[PHASE_COUNT][BUCKET_BOUNDS.length + 1];
+    private final int[] mCount = new int[PHASE_COUNT];
+    private final long[] mTotal = new long[PHASE_COUNT];
+    private final long[] mMax = new long[PHASE_COUNT];
+
+    private int mAnimatedFrames;
+    private int mDroppedFrames;
+
+    void record(int phase, long latencyMillis) {
+        if (latencyMillis < 0) {
+            return;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && latencyMillis > BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        mBuckets[phase][bucket]++;
+        mCount[phase]++;
+        mTotal[phase] += latencyMillis;
+        if (latencyMillis > mMax[phase]) {
+            mMax[phase] = latencyMillis;
+        }
+    }
+
+    void recordFrame(int droppedFrames) {
+        mAnimatedFrames++;
+        mDroppedFrames += droppedFrames;
+    }
+
+    /**
+     * Gets number of recorded samples of a phase.
+     *
+     * @param phase one of the PHASE_* constants
+     * @return sample count
+     */
+    public int getCount(int phase) {
+        return mCount[phase];
+    }
+
+    /**
+     * Gets mean latency of a phase.
+     *
+     * @param phase one of the PHASE_* constants
+     * @return mean latency in milliseconds, 0 without samples
+     */
+    public float getMean(int phase) {
+        return mCount[phase] == 0 ? 0 : (float) mTotal[phase] / mCount[phase];
+    }
+
+    /**
+     * Gets maximum latency of a phase.
+     *
+     * @param phase one of the PHASE_* constants
+     * @return max latency in milliseconds
+     */
+    public long getMax(int phase) {
+        return mMax[phase];
+    }
+
+    /**
+     * Gets approximate latency percentile of a phase.
+     *
+     * @param phase      one of the PHASE_* constants
+     * @param percentile percentile in range (0, 100]
+     * @return upper bound of the bucket containing the percentile, in milliseconds
+     */
+    public long getPercentile(int phase, float percentile) {
+        int count = mCount[phase];
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(count * percentile / 100f);
+        int seen = 0;
+        int[] buckets = mBuckets[phase];
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i < BUCKET_BOUNDS.length
+                        ? Math.min(BUCKET_BOUNDS[i], mMax[phase]) : mMax[phase];
+            }
+        }
+        return mMax[phase];
+    }
+
+    /**
+     * Gets number of selector animation frames drawn.
+     *
+     * @return frame count
+     */
+    public int getAnimatedFrames() {
+        return mAnimatedFrames;
+    }
+
+    /**
+     * Gets number of frames missed while selectors were animating.
+     *
+     * @return dropped frame count
+     */
+    public int getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public void reset() {
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            for (int i = 0; i < mBuckets[phase].length; i++) {
+                mBuckets[phase][i] = 0;
+            }
+            mCount[phase] = 0;
+            mTotal[phase] = 0;
+            mMax[phase] = 0;
+        }
+        mAnimatedFrames = 0;
+        mDroppedFrames = 0;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+/**
+ * Selector motion math of {@link RecyclerTabLayout}. It is free of Android types, so it can be
+ * benchmarked on a plain JVM.
+ *
+ * @author Clendy
+ */
+final class SelectorGeometry {
+
+    private SelectorGeometry() {
+    }
+
+    /**
+     * Interpolates one selector edge, truncating towards the start like the framework evaluators.
+     *
+     * @param start    edge at fraction 0
+     * @param end      edge at fraction 1
+     * @param fraction animation fraction
+     * @return edge at the fraction
+     */
+    static int interpolate(int start, int end, float fraction) {
+        return start + (int) ((end - start) * fraction);
+    }
+
+    /**
+     * Computes how long the selector travels a distance.
+     *
+     * @param dx       horizontal distance in pixels
+     * @param dy       vertical distance in pixels
+     * @param velocity selector velocity in pixels per second
+     * @return duration in milliseconds
+     */
+    static int computeTravelDuration(int dx, int dy, int velocity) {
+        return (int) (Math.sqrt(dx * dx + dy * dy) / velocity * 1000);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.graphics.Rect;
+
+/**
+ * Damped spring moving the four edges of a selector towards target bounds. Velocity is kept when
+ * the target changes, so rapid retargets do not stop and restart the motion. Motion is bounded:
+ * after {@link #getMaxFrames()} steps the spring snaps to its target.
+ *
+ * @author Clendy
+ */
+class SelectorSpring {
+
+    static final float DEFAULT_STIFFNESS = 400f;
+    static final float DEFAULT_DAMPING_RATIO = 1f;
+    static final int DEFAULT_MAX_FRAMES = 40;
+
+    private static final float MAX_STEP = 1f / 60f;
+    private static final float REST_DISTANCE = 0.5f;
+    private static final float REST_VELOCITY = 10f;
+
+    private static final int EDGES = 4;
+
+    private final float[] mPosition = new float[EDGES];
+    private final float[] mVelocity = new float[EDGES];
+    private final float[] mTarget = new float[EDGES];
+
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDamping = computeDamping(DEFAULT_STIFFNESS, DEFAULT_DAMPING_RATIO);
+    private int mMaxFrames = DEFAULT_MAX_FRAMES;
+    private int mFrames = 0;
+
+    /**
+     * @param stiffness    spring stiffness, in 1/s&sup2;
+     * @param dampingRatio damping ratio, 1 is critical damping
+     */
+    void setSpring(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException("Stiffness and damping ratio must be positive.");
+        }
+        mStiffness = stiffness;
+        mDamping = computeDamping(stiffness, dampingRatio);
+    }
+
+    float getStiffness() {
+        return mStiffness;
+    }
+
+    void setMaxFrames(int maxFrames) {
+        mMaxFrames = Math.max(1, maxFrames);
+    }
+
+    int getMaxFrames() {
+        return mMaxFrames;
+    }
+
+    private static float computeDamping(float stiffness, float dampingRatio) {
+        return 2f * (float) Math.sqrt(stiffness) * dampingRatio;
+    }
+
+    /**
+     * Places the spring at rest on the passed bounds.
+     *
+     * @param bounds bounds
+     */
+    void snapTo(Rect bounds) {
+        load(mPosition, bounds);
+        load(mTarget, bounds);
+        for (int i = 0; i < EDGES; i++) {
+            mVelocity[i] = 0;
+        }
+        mFrames = 0;
+    }
+
+    /**
+     * Changes the target, keeping current position and velocity.
+     *
+     * @param target new target bounds
+     */
+    void setTarget(Rect target) {
+        load(mTarget, target);
+        mFrames = 0;
+    }
+
+    /**
+     * Advances the spring.
+     *
+     * @param dt elapsed time in seconds
+     * @return true if the spring is still moving
+     */
+    boolean step(float dt) {
+        if (++mFrames >= mMaxFrames) {
+            settle();
+            return false;
+        }
+
+        // semi-implicit Euler, sub-stepped to stay stable on long frames
+        float remaining = dt > 0 ? dt : MAX_STEP;
+        while (remaining > 0) {
+            float h = Math.min(remaining, MAX_STEP);
+            for (int i = 0; i < EDGES; i++) {
+                float accel = -mStiffness * (mPosition[i] - mTarget[i]) - mDamping * mVelocity[i];
+                mVelocity[i] += accel * h;
+                mPosition[i] += mVelocity[i] * h;
+            }
+            remaining -= h;
+        }
+
+        if (isAtRest()) {
+            settle();
+            return false;
+        }
+        return true;
+    }
+
+    boolean isAtRest() {
+        for (int i = 0; i < EDGES; i++) {
+            if (Math.abs(mPosition[i] - mTarget[i]) > REST_DISTANCE
+                    || Math.abs(mVelocity[i]) > REST_VELOCITY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void getBounds(Rect out) {
+        out.set(Math.round(mPosition[0]), Math.round(mPosition[1]),
+                Math.round(mPosition[2]), Math.round(mPosition[3]));
+    }
+
+    private void settle() {
+        for (int i = 0; i < EDGES; i++) {
+            mPosition[i] = mTarget[i];
+            mVelocity[i] = 0;
+        }
+    }
+
+    private static void load(float[] edges, Rect rect) {
+        edges[0] = rect.left;
+        edges[1] = rect.top;
+        edges[2] = rect.right;
+        edges[3] = rect.bottom;
+    }
+}
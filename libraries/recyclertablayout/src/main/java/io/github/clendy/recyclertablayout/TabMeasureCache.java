@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.content.res.Configuration;
+import android.os.Build;
+import android.support.v4.util.LruCache;
+
+import java.util.Locale;
+
+/**
+ * Cache of measured tab sizes keyed by whatever determines a tab's size, typically its label and
+ * style. Tabs that already have their cached size and did not request a layout are not
+ * measured again, e.g. when a layout pass only moves tabs.
+ * <p>
+ * Only view holders implementing {@link MeasureKeyProvider} are cached. The key must capture
+ * everything that changes the tab's size. The cache is cleared when font scale, density or
+ * locale change, and when the strip is resized.
+ *
+ * @author Clendy
+ */
+public class TabMeasureCache {
+
+    /**
+     * Implemented by tab view holders whose measured size can be cached.
+     */
+    public interface MeasureKeyProvider {
+
+        /**
+         * Gets the key of the currently bound tab, for example label and style.
+         *
+         * @return cache key, or null to always measure this tab
+         */
+        Object getMeasureKey();
+    }
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final LruCache<Object, Long> mSizes;
+
+    private float mFontScale;
+    private int mDensityDpi;
+    private Locale mLocale;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    public TabMeasureCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public TabMeasureCache(int maxSize) {
+        mSizes = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Gets cached size.
+     *
+     * @param key tab key
+     * @return width in the upper 32 bits and height in the lower 32 bits, or -1 if absent
+     */
+    long get(Object key) {
+        Long size = mSizes.get(key);
+        if (size == null) {
+            mMissCount++;
+            return -1;
+        }
+        mHitCount++;
+        return size;
+    }
+
+    void put(Object key, int width, int height) {
+        mSizes.put(key, ((long) width << 32) | (height & 0xffffffffL));
+    }
+
+    static int width(long size) {
+        return (int) (size >>> 32);
+    }
+
+    static int height(long size) {
+        return (int) size;
+    }
+
+    /**
+     * Clears the cache if the configuration affecting text size has changed since it was filled.
+     *
+     * @param config current configuration
+     */
+    @SuppressWarnings("deprecation")
+    void ensureConfiguration(Configuration config) {
+        int densityDpi = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+                ? config.densityDpi : 0;
+        if (config.fontScale != mFontScale || densityDpi != mDensityDpi
+                || (config.locale != null ? !config.locale.equals(mLocale) : mLocale != null)) {
+            mFontScale = config.fontScale;
+            mDensityDpi = densityDpi;
+            mLocale = config.locale;
+            invalidate();
+        }
+    }
+
+    /**
+     * Removes all cached sizes.
+     */
+    public void invalidate() {
+        mSizes.evictAll();
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+}
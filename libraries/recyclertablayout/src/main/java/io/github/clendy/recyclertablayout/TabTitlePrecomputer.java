@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds text layouts of tab titles off the main thread, while adapter data is prepared. Bind
+ * them to {@link TabTitleView}s with {@link #getLayout(CharSequence)}, so binding a tab does no
+ * text shaping on the UI thread. The most recently used {@link #MAX_LAYOUTS} layouts are kept.
+ * <p>
+ * Layouts built in the background use their own copy of the paint, as paints are not thread
+ * safe.
+ *
+ * @author Clendy
+ */
+public class TabTitlePrecomputer {
+
+    public static final int MAX_LAYOUTS = 256;
+
+    private final TextPaint mPaint;
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<CharSequence, Layout> mLayouts = new LruCache<>(MAX_LAYOUTS);
+
+    /**
+     * @param prototype text view styled like the tab titles; its paint is copied
+     */
+    public TabTitlePrecomputer(@NonNull TextView prototype) {
+        this(new TextPaint(prototype.getPaint()), AsyncTask.SERIAL_EXECUTOR);
+    }
+
+    /**
+     * @param paint    paint used to shape and draw the titles; must not be changed afterwards
+     * @param executor executor the layouts are built on
+     */
+    public TabTitlePrecomputer(@NonNull TextPaint paint, @NonNull Executor executor) {
+        mPaint = paint;
+        mExecutor = executor;
+    }
+
+    public TextPaint getPaint() {
+        return mPaint;
+    }
+
+    /**
+     * Builds layouts of the passed titles in the background.
+     *
+     * @param titles titles to precompute
+     * @param onDone run on the main thread once all layouts are built, may be null
+     */
+    public void precompute(@NonNull List<? extends CharSequence> titles,
+                           @Nullable final Runnable onDone) {
+        final List<CharSequence> pending = new ArrayList<CharSequence>(titles);
+        final TextPaint paint = new TextPaint(mPaint);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (CharSequence title : pending) {
+                    if (title != null && mLayouts.get(title) == null) {
+                        mLayouts.put(title, buildLayout(title, paint));
+                    }
+                }
+                if (onDone != null) {
+                    mMainHandler.post(onDone);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the layout of a title. Titles that have not been precomputed are laid out on the
+     * calling thread.
+     *
+     * @param title title text
+     * @return text layout of the title
+     */
+    @NonNull
+    public Layout getLayout(@NonNull CharSequence title) {
+        Layout layout = mLayouts.get(title);
+        if (layout == null) {
+            layout = buildLayout(title, mPaint);
+            mLayouts.put(title, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Drops all precomputed layouts, e.g. after the title style or configuration changed.
+     */
+    public void clear() {
+        mLayouts.evictAll();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Layout buildLayout(CharSequence title, TextPaint paint) {
+        int width = (int) Math.ceil(Layout.getDesiredWidth(title, paint));
+        return new StaticLayout(title, paint, width, Layout.Alignment.ALIGN_NORMAL,
+                1f, 0f, false);
+    }
+}
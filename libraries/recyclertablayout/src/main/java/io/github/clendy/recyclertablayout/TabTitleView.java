@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Lightweight tab title drawing a text {@link Layout} built by {@link TabTitlePrecomputer}.
+ * Text color is applied at draw time with a paint of this view, so one layout can be shared by
+ * many tabs and its paint is never changed. With a text color set, the title is drawn in the
+ * layout's text style, ignoring styling spans.
+ *
+ * @author Clendy
+ */
+public class TabTitleView extends View {
+
+    private Layout mLayout;
+    private final TextPaint mPaint = new TextPaint();
+    private ColorStateList mTextColor;
+    private int mCurTextColor;
+
+    public TabTitleView(Context context) {
+        this(context, null);
+    }
+
+    public TabTitleView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TabTitleView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Sets the text layout to draw. Layout is only requested if the size changes.
+     *
+     * @param layout precomputed text layout
+     */
+    public void setTextLayout(Layout layout) {
+        if (mLayout == layout) {
+            return;
+        }
+        Layout old = mLayout;
+        mLayout = layout;
+        if (layout != null) {
+            mPaint.set(layout.getPaint());
+        }
+        if (old == null || layout == null || old.getWidth() != layout.getWidth()
+                || old.getHeight() != layout.getHeight()) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    public Layout getTextLayout() {
+        return mLayout;
+    }
+
+    public CharSequence getText() {
+        return mLayout != null ? mLayout.getText() : null;
+    }
+
+    public void setTextColor(int color) {
+        setTextColor(ColorStateList.valueOf(color));
+    }
+
+    public void setTextColor(ColorStateList colors) {
+        mTextColor = colors;
+        updateTextColor();
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        updateTextColor();
+    }
+
+    private void updateTextColor() {
+        if (mTextColor == null) {
+            return;
+        }
+        int color = mTextColor.getColorForState(getDrawableState(), mTextColor.getDefaultColor());
+        if (color != mCurTextColor) {
+            mCurTextColor = color;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getPaddingLeft() + getPaddingRight();
+        int height = getPaddingTop() + getPaddingBottom();
+        if (mLayout != null) {
+            width += mLayout.getWidth();
+            height += mLayout.getHeight();
+        }
+        setMeasuredDimension(resolveSize(Math.max(width, getSuggestedMinimumWidth()),
+                widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mLayout == null) {
+            return;
+        }
+
+        // center the layout in the content area
+        int contentWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        int contentHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+        float dx = getPaddingLeft() + (contentWidth - mLayout.getWidth()) / 2f;
+        float dy = getPaddingTop() + (contentHeight - mLayout.getHeight()) / 2f;
+
+        canvas.save();
+        canvas.translate(dx, dy);
+        if (mTextColor == null) {
+            mLayout.draw(canvas);
+        } else {
+            drawLines(canvas);
+        }
+        canvas.restore();
+    }
+
+    private void drawLines(Canvas canvas) {
+        mPaint.setColor(mCurTextColor);
+        CharSequence text = mLayout.getText();
+        for (int line = 0; line < mLayout.getLineCount(); line++) {
+            canvas.drawText(text, mLayout.getLineStart(line), mLayout.getLineVisibleEnd(line),
+                    mLayout.getLineLeft(line), mLayout.getLineBaseline(line), mPaint);
+        }
+    }
+}
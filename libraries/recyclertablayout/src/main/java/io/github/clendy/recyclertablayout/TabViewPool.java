@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+import android.view.View;
+
+/**
+ * RecycledViewPool meant to be shared by several {@link RecyclerTabLayout}s with identical tab
+ * layouts. Tab view holders can be created ahead of time, one per main thread idle pass, so the
+ * first layout of a strip takes them from the pool instead of inflating.
+ * <p>
+ * Warm up after an adapter has been set on a RecyclerView using this pool: RecyclerView clears a
+ * pool that has no adapter attached when the first one is set. A warm-up stops once the pool
+ * holds as many holders of the type as it keeps, or when the RecyclerView is detached.
+ *
+ * @author Clendy
+ */
+public class TabViewPool extends RecyclerView.RecycledViewPool {
+
+    /**
+     * Same as RecycledViewPool's own default, which it does not expose.
+     */
+    private static final int DEFAULT_MAX_SCRAP = 5;
+
+    private final SparseIntArray mMaxScrap = new SparseIntArray();
+    // mirrors the pool's scrap heap sizes, which are not exposed either
+    private final SparseIntArray mScrapCount = new SparseIntArray();
+
+    private RecyclerView mWarmUpParent;
+    private RecyclerView.Adapter mWarmUpAdapter;
+    private int mWarmUpViewType;
+    private int mWarmUpRemaining;
+    private boolean mIdleHandlerAdded = false;
+
+    private final MessageQueue.IdleHandler mWarmUpHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            if (mWarmUpRemaining <= 0 || mWarmUpParent == null
+                    || mWarmUpParent.getAdapter() != mWarmUpAdapter
+                    || isFull(mWarmUpViewType)) {
+                finishWarmUp();
+                return false;
+            }
+
+            RecyclerView.ViewHolder holder =
+                    mWarmUpAdapter.createViewHolder(mWarmUpParent, mWarmUpViewType);
+            putRecycledView(holder);
+
+            if (--mWarmUpRemaining <= 0 || isFull(mWarmUpViewType)) {
+                finishWarmUp();
+                return false;
+            }
+            return true;
+        }
+    };
+
+    private final View.OnAttachStateChangeListener mDetachListener =
+            new View.OnAttachStateChangeListener() {
+                @Override
+                public void onViewAttachedToWindow(View v) {
+                }
+
+                @Override
+                public void onViewDetachedFromWindow(View v) {
+                    cancelWarmUp();
+                }
+            };
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        mMaxScrap.put(viewType, max);
+        if (mScrapCount.get(viewType) > max) {
+            mScrapCount.put(viewType, max);
+        }
+        super.setMaxRecycledViews(viewType, max);
+    }
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder scrap) {
+        final int viewType = scrap.getItemViewType();
+        final int count = mScrapCount.get(viewType);
+        if (count < getMaxScrap(viewType)) {
+            mScrapCount.put(viewType, count + 1);
+        }
+        super.putRecycledView(scrap);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        final RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        if (holder != null) {
+            mScrapCount.put(viewType, mScrapCount.get(viewType) - 1);
+        }
+        return holder;
+    }
+
+    @Override
+    public void clear() {
+        mScrapCount.clear();
+        super.clear();
+    }
+
+    private int getMaxScrap(int viewType) {
+        return mMaxScrap.get(viewType, DEFAULT_MAX_SCRAP);
+    }
+
+    private boolean isFull(int viewType) {
+        return mScrapCount.get(viewType) >= getMaxScrap(viewType);
+    }
+
+    /**
+     * Creates tab view holders of the given type during main thread idle time, one per idle
+     * pass, and puts them into this pool. The number of holders the pool keeps of the type is
+     * raised to the count if needed, never lowered. Replaces any warm-up in progress.
+     *
+     * @param parent   RecyclerView the holders are created for, must use this pool
+     * @param viewType view type of the holders
+     * @param count    number of holders to create
+     */
+    public void warmUp(RecyclerView parent, int viewType, int count) {
+        if (parent.getAdapter() == null) {
+            throw new IllegalStateException("RecyclerView does not provide adapter instance.");
+        }
+        if (parent.getRecycledViewPool() != this) {
+            throw new IllegalStateException("RecyclerView does not use this pool.");
+        }
+
+        if (getMaxScrap(viewType) < count) {
+            setMaxRecycledViews(viewType, count);
+        }
+        if (count <= 0 || isFull(viewType)) {
+            cancelWarmUp();
+            return;
+        }
+
+        if (mWarmUpParent != null) {
+            mWarmUpParent.removeOnAttachStateChangeListener(mDetachListener);
+        }
+        parent.addOnAttachStateChangeListener(mDetachListener);
+        mWarmUpParent = parent;
+        mWarmUpAdapter = parent.getAdapter();
+        mWarmUpViewType = viewType;
+        mWarmUpRemaining = count;
+        if (!mIdleHandlerAdded) {
+            mIdleHandlerAdded = true;
+            Looper.myQueue().addIdleHandler(mWarmUpHandler);
+        }
+    }
+
+    /**
+     * Stops the warm-up in progress. Holders already created stay in the pool.
+     */
+    public void cancelWarmUp() {
+        if (mIdleHandlerAdded) {
+            Looper.myQueue().removeIdleHandler(mWarmUpHandler);
+        }
+        finishWarmUp();
+    }
+
+    public boolean isWarmingUp() {
+        return mIdleHandlerAdded;
+    }
+
+    private void finishWarmUp() {
+        if (mWarmUpParent != null) {
+            mWarmUpParent.removeOnAttachStateChangeListener(mDetachListener);
+        }
+        mIdleHandlerAdded = false;
+        mWarmUpParent = null;
+        mWarmUpAdapter = null;
+        mWarmUpRemaining = 0;
+    }
+}
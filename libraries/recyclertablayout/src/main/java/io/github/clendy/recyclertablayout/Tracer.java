@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.support.v4.os.TraceCompat;
+
+/**
+ * Systrace sections of the heavy widget paths. Sections are only emitted when the library is
+ * built with {@code traceEnabled = true} in config.gradle; otherwise {@link #ENABLED} is a
+ * compile-time false and every call is an empty static method.
+ *
+ * @author Clendy
+ */
+final class Tracer {
+
+    static final boolean ENABLED = BuildConfig.TRACE_ENABLED;
+
+    private Tracer() {
+    }
+
+    static void beginSection(String sectionName) {
+        if (ENABLED) {
+            TraceCompat.beginSection(sectionName);
+        }
+    }
+
+    static void endSection() {
+        if (ENABLED) {
+            TraceCompat.endSection();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Selection of a circular {@link RecyclerTabLayout} across data set changes.
+ *
+ * @author Clendy
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RecyclerTabLayoutCircularTest {
+
+    private static final int TAB_COUNT = 10;
+
+    private RecyclerTabLayout mTabLayout;
+    private Button mOutside;
+    private TabAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.orientation, "horizontal")
+                .build();
+        mTabLayout = new RecyclerTabLayout(activity, attrs);
+        mTabLayout.setFocusedBackground(android.R.drawable.list_selector_background);
+        mTabLayout.setCircular(true);
+        mAdapter = new TabAdapter();
+        mTabLayout.setAdapter(mAdapter);
+
+        mOutside = new Button(activity);
+        LinearLayout root = new LinearLayout(activity);
+        root.setOrientation(LinearLayout.VERTICAL);
+        root.addView(mOutside, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 80));
+        root.addView(mTabLayout, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 80));
+        activity.setContentView(root);
+        settle();
+
+        mTabLayout.getChildAt(0).requestFocus();
+        settle();
+    }
+
+    @Test
+    public void dataSetChangedWhileUnfocused_refocusesFirstTab() {
+        mOutside.requestFocus();
+        settle();
+        assertFalse(mTabLayout.hasFocus());
+
+        mAdapter.notifyDataSetChanged();
+        settle();
+        mTabLayout.requestFocus();
+        settle();
+
+        assertTrue(mTabLayout.hasFocus());
+        assertEquals(0, mTabLayout.getRealPosition(mTabLayout.getSelectedItemPosition()));
+    }
+
+    private static void settle() {
+        ShadowLooper.idleMainLooper(1000);
+    }
+
+    private static class TabAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            TextView view = new TextView(parent.getContext());
+            view.setFocusable(true);
+            view.setLayoutParams(new RecyclerView.LayoutParams(160, 80));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            ((TextView) holder.itemView).setText("Tab " + position);
+        }
+
+        @Override
+        public int getItemCount() {
+            return TAB_COUNT;
+        }
+    }
+}
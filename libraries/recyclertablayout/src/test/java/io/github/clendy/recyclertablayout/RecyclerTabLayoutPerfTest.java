@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2016 Clendy <yc330483161@163.com|yc330483161@outlook.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clendy.recyclertablayout;
+
+import android.content.Context;
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.view.PagerAdapter;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.KeyEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import io.github.clendy.multipleviewpager.MultiHorizontalViewPager;
+import io.github.clendy.perftest.DpadPerfDriver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static io.github.clendy.perftest.DpadPerfDriver.assertBudget;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives D-pad sequences through a {@link RecyclerTabLayout} bound to a
+ * {@link MultiHorizontalViewPager} and fails when a key event costs more measure/layout passes
+ * of the tab strip, pager {@code populate()} calls or page instantiations than budgeted.
+ *
+ * @author Clendy
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RecyclerTabLayoutPerfTest {
+
+    private static final int TAB_COUNT = 40;
+    private static final int WARM_UP_KEYS = 5;
+    private static final int MEASURED_KEYS = 20;
+    private static final long SETTLE_MILLIS = 1000;
+
+    private static final float MAX_STRIP_MEASURES_PER_KEY = 2f;
+    private static final float MAX_STRIP_LAYOUTS_PER_KEY = 2f;
+    private static final float MAX_POPULATES_PER_KEY = 4f;
+    private static final float MAX_PAGES_INSTANTIATED_PER_KEY = 1f;
+
+    private CountingTabLayout mTabLayout;
+    private MultiHorizontalViewPager mViewPager;
+    private CountingPagerAdapter mPagerAdapter;
+    private DpadPerfDriver mDriver;
+
+    @Before
+    public void setUp() {
+        FragmentActivity activity = Robolectric.setupActivity(FragmentActivity.class);
+
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.orientation, "horizontal")
+                .addAttribute(R.attr.selectorVelocity, "2000")
+                .build();
+        mTabLayout = new CountingTabLayout(activity, attrs);
+        mTabLayout.setFocusedBackground(android.R.drawable.list_selector_background);
+        mTabLayout.setAdapter(new TabAdapter());
+
+        mPagerAdapter = new CountingPagerAdapter();
+        mViewPager = new MultiHorizontalViewPager(activity);
+        mViewPager.setAdapter(mPagerAdapter);
+
+        LinearLayout root = new LinearLayout(activity);
+        root.setOrientation(LinearLayout.VERTICAL);
+        root.addView(mTabLayout, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 80));
+        root.addView(mViewPager, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, 0, 1f));
+        activity.setContentView(root);
+        mTabLayout.setViewPager(mViewPager);
+
+        mDriver = new DpadPerfDriver(mTabLayout, SETTLE_MILLIS) {
+            @Override
+            protected void onKeyNotConsumed(int direction) {
+                View focused = mTabLayout.findFocus();
+                View next = focused != null ? focused.focusSearch(direction) : null;
+                if (next != null) {
+                    next.requestFocus(direction);
+                }
+            }
+        };
+        mDriver.settle();
+
+        mTabLayout.getChildAt(0).requestFocus();
+        mDriver.settle();
+    }
+
+    @Test
+    public void dpadRight_staysWithinStripLayoutBudget() {
+        mDriver.pressKeys(KeyEvent.KEYCODE_DPAD_RIGHT, View.FOCUS_RIGHT, WARM_UP_KEYS);
+        mTabLayout.resetCounters();
+
+        mDriver.pressKeys(KeyEvent.KEYCODE_DPAD_RIGHT, View.FOCUS_RIGHT, MEASURED_KEYS);
+
+        assertEquals(WARM_UP_KEYS + MEASURED_KEYS,
+                mTabLayout.getChildAdapterPosition(mTabLayout.getFocusedChild()));
+        assertBudget("strip measures", mTabLayout.mStripMeasures, MEASURED_KEYS,
+                MAX_STRIP_MEASURES_PER_KEY);
+        assertBudget("strip layouts", mTabLayout.mStripLayouts, MEASURED_KEYS,
+                MAX_STRIP_LAYOUTS_PER_KEY);
+    }
+
+    @Test
+    public void dpadRight_staysWithinPopulateAndInstantiationBudget() {
+        mDriver.pressKeys(KeyEvent.KEYCODE_DPAD_RIGHT, View.FOCUS_RIGHT, WARM_UP_KEYS);
+        mPagerAdapter.mPopulates = 0;
+        mPagerAdapter.mInstantiated = 0;
+
+        mDriver.pressKeys(KeyEvent.KEYCODE_DPAD_RIGHT, View.FOCUS_RIGHT, MEASURED_KEYS);
+
+        assertEquals(WARM_UP_KEYS + MEASURED_KEYS, mViewPager.getCurrentItem());
+        assertBudget("populates", mPagerAdapter.mPopulates, MEASURED_KEYS,
+                MAX_POPULATES_PER_KEY);
+        assertBudget("pages instantiated", mPagerAdapter.mInstantiated, MEASURED_KEYS,
+                MAX_PAGES_INSTANTIATED_PER_KEY);
+    }
+
+    private static class CountingTabLayout extends RecyclerTabLayout {
+
+        int mStripMeasures;
+        int mStripLayouts;
+
+        CountingTabLayout(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        void resetCounters() {
+            mStripMeasures = 0;
+            mStripLayouts = 0;
+        }
+
+        @Override
+        protected void onMeasure(int widthSpec, int heightSpec) {
+            mStripMeasures++;
+            super.onMeasure(widthSpec, heightSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mStripLayouts++;
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+
+    private static class TabAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            TextView view = new TextView(parent.getContext());
+            view.setFocusable(true);
+            view.setLayoutParams(new RecyclerView.LayoutParams(160, 80));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            ((TextView) holder.itemView).setText("Tab " + position);
+        }
+
+        @Override
+        public int getItemCount() {
+            return TAB_COUNT;
+        }
+    }
+
+    /**
+     * Counts {@code populate()} calls of the pager through {@link #startUpdate(ViewGroup)}, which
+     * ViewPager calls once per populate that gets past its early returns. ViewPager's
+     * {@code populate()} is package-private and cannot be overridden from here.
+     */
+    private static class CountingPagerAdapter extends PagerAdapter {
+
+        int mPopulates;
+        int mInstantiated;
+
+        @Override
+        public void startUpdate(ViewGroup container) {
+            mPopulates++;
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            mInstantiated++;
+            View page = new View(container.getContext());
+            container.addView(page);
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View) object);
+        }
+
+        @Override
+        public int getCount() {
+            return TAB_COUNT;
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+    }
+}